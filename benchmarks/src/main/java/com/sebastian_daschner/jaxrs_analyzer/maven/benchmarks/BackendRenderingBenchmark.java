@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.benchmarks;
+
+import com.sebastian_daschner.jaxrs_analyzer.JAXRSAnalyzer;
+import com.sebastian_daschner.jaxrs_analyzer.analysis.ProjectAnalyzer;
+import com.sebastian_daschner.jaxrs_analyzer.backend.Backend;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering of an analyzed synthetic project for each backend type.
+ * Allocation rates are available via the GC profiler ({@code -prof gc}).
+ *
+ * @author Sebastian Daschner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BackendRenderingBenchmark {
+
+    @Param({"100"})
+    public int resources;
+
+    @Param({"5"})
+    public int methods;
+
+    @Param({"3"})
+    public int entityDepth;
+
+    @Param({"PLAINTEXT", "ASCIIDOC", "MARKDOWN", "SWAGGER", "BINARY"})
+    public String backendType;
+
+    private Path root;
+    private Project project;
+    private Backend backend;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jaxrs-analyzer-benchmark");
+        final SyntheticProject syntheticProject = SyntheticProject.generate(root, resources, methods, entityDepth, 0);
+
+        final Set<Path> classPaths = new HashSet<>();
+        classPaths.add(StubRepository.codeSource(javax.ws.rs.Path.class));
+        classPaths.add(StubRepository.codeSource(JAXRSAnalyzer.class));
+
+        final Resources analyzed = new ProjectAnalyzer(classPaths).analyze(Collections.singleton(syntheticProject.getOutputDirectory()),
+                Collections.singleton(syntheticProject.getSourceDirectory()), Collections.emptySet());
+        project = new Project("synthetic", "1.0", analyzed);
+
+        backend = constructBackend(backendType);
+        backend.configure(Collections.emptyMap());
+    }
+
+    private static Backend constructBackend(final String backendType) {
+        if (!"BINARY".equals(backendType))
+            return JAXRSAnalyzer.constructBackend(backendType);
+
+        // the binary backend is provided by the plugin and not part of its API
+        try {
+            final Constructor<?> constructor = Class.forName("com.sebastian_daschner.jaxrs_analyzer.maven.BinaryModelBackend").getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (Backend) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not construct binary backend", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.delete(root);
+    }
+
+    @Benchmark
+    public byte[] render() {
+        return backend.render(project);
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.benchmarks;
+
+import com.sebastian_daschner.jaxrs_analyzer.maven.JAXRSAnalyzerMojo;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full {@link JAXRSAnalyzerMojo} execution against a synthetic project, from dependency resolution to
+ * the written output. Allocation rates are available via the GC profiler ({@code -prof gc}).
+ *
+ * @author Sebastian Daschner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MojoBenchmark {
+
+    @Param({"10", "100"})
+    public int resources;
+
+    @Param({"5"})
+    public int methods;
+
+    @Param({"3"})
+    public int entityDepth;
+
+    @Param({"10"})
+    public int dependencyJars;
+
+    @Param({"plaintext", "swagger"})
+    public String backend;
+
+    private Path root;
+    private SyntheticProject project;
+    private StubRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jaxrs-analyzer-benchmark");
+        project = SyntheticProject.generate(root.resolve("project"), resources, methods, entityDepth, dependencyJars);
+        repository = StubRepository.create(root.resolve("repository"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.delete(root);
+    }
+
+    @Benchmark
+    public Path analyze() throws MojoExecutionException {
+        final JAXRSAnalyzerMojo mojo = new JAXRSAnalyzerMojo();
+        configure(mojo);
+        mojo.execute();
+        return project.getBuildDirectory();
+    }
+
+    private void configure(final JAXRSAnalyzerMojo mojo) {
+        mojo.setLog(new QuietLog());
+        inject(mojo, "backend", backend);
+        inject(mojo, "deployedDomain", "");
+        inject(mojo, "swaggerSchemes", new String[]{"http"});
+        inject(mojo, "renderSwaggerTags", false);
+        inject(mojo, "swaggerTagsPathOffset", 0);
+        inject(mojo, "inlinePrettify", true);
+        inject(mojo, "streamSwagger", false);
+        inject(mojo, "compressOutput", false);
+        inject(mojo, "outputDirectory", project.getOutputDirectory().toFile());
+        inject(mojo, "sourceDirectory", project.getSourceDirectory().toFile());
+        inject(mojo, "buildDirectory", project.getBuildDirectory().toFile());
+        inject(mojo, "encoding", "UTF-8");
+        inject(mojo, "project", mavenProject());
+        inject(mojo, "repoSystem", repository.repositorySystem());
+        inject(mojo, "repoSession", repository.session());
+        inject(mojo, "remoteRepos", Collections.emptyList());
+        inject(mojo, "resourcesDir", "jaxrs-analyzer");
+        inject(mojo, "ignoredRootResources", new String[0]);
+        // every execution performs the full analysis
+        inject(mojo, "incremental", false);
+        inject(mojo, "pruneClassPath", false);
+        inject(mojo, "parallelism", 0);
+        inject(mojo, "restrictSourcePaths", false);
+        inject(mojo, "restrictProjectClasses", false);
+        inject(mojo, "writeMetrics", false);
+        inject(mojo, "daemon", false);
+        inject(mojo, "daemonIdleTimeout", 180);
+        inject(mojo, "memoryBudget", 0);
+    }
+
+    private MavenProject mavenProject() {
+        final MavenProject mavenProject = new MavenProject();
+        mavenProject.setGroupId("com.example");
+        mavenProject.setArtifactId("synthetic");
+        mavenProject.setVersion("1.0");
+        mavenProject.setName("synthetic");
+
+        final Set<Artifact> artifacts = new LinkedHashSet<>();
+        for (final Path dependency : project.getDependencies()) {
+            final String name = dependency.getFileName().toString();
+            artifacts.add(artifact("com.example", name.substring(0, name.length() - ".jar".length()), "1.0", dependency));
+        }
+        mavenProject.setResolvedArtifacts(artifacts);
+        mavenProject.setPluginArtifacts(Collections.singleton(
+                artifact("com.sebastian-daschner", "jaxrs-analyzer-maven-plugin", StubRepository.ANALYZER_VERSION, null)));
+        return mavenProject;
+    }
+
+    private static Artifact artifact(final String groupId, final String artifactId, final String version, final Path file) {
+        final Artifact artifact = new DefaultArtifact(groupId, artifactId, version, Artifact.SCOPE_COMPILE, "jar", null, new DefaultArtifactHandler("jar"));
+        if (file != null)
+            artifact.setFile(file.toFile());
+        return artifact;
+    }
+
+    /**
+     * Sets the mojo parameter, as Maven does, declared either in the mojo or in one of its super classes.
+     */
+    static void inject(final Object mojo, final String name, final Object value) {
+        for (Class<?> type = mojo.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(mojo, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // continue with super class
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not set " + name, e);
+            }
+        }
+        throw new IllegalArgumentException("Unknown mojo parameter " + name);
+    }
+
+    /**
+     * Only logs errors to keep the benchmark output readable.
+     */
+    private static class QuietLog extends SystemStreamLog {
+
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+
+        @Override
+        public void info(final CharSequence content) {
+            // ignored
+        }
+
+    }
+
+}
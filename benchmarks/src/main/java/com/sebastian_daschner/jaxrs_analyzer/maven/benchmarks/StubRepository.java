@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.benchmarks;
+
+import com.sebastian_daschner.jaxrs_analyzer.JAXRSAnalyzer;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Local, offline repository which provides the artifacts the plugin resolves internally.
+ * The artifacts are taken from the benchmark's own class path and laid out in the Maven repository format.
+ *
+ * @author Sebastian Daschner
+ */
+public class StubRepository {
+
+    public static final String ANALYZER_VERSION = "benchmark";
+
+    private final Path root;
+
+    private StubRepository(final Path root) {
+        this.root = root;
+    }
+
+    public static StubRepository create(final Path root) throws IOException {
+        final StubRepository repository = new StubRepository(root);
+        repository.install("javax", "javaee-api", "7.0", codeSource(javax.ws.rs.Path.class));
+        repository.install("com.sebastian-daschner", "jaxrs-analyzer", ANALYZER_VERSION, codeSource(JAXRSAnalyzer.class));
+        return repository;
+    }
+
+    static Path codeSource(final Class<?> type) {
+        try {
+            return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Could not locate " + type, e);
+        }
+    }
+
+    private void install(final String groupId, final String artifactId, final String version, final Path file) throws IOException {
+        final Path location = locate(groupId, artifactId, version);
+        Files.createDirectories(location.getParent());
+        if (!Files.exists(location))
+            Files.copy(file, location);
+    }
+
+    private Path locate(final String groupId, final String artifactId, final String version) {
+        return root.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version).resolve(artifactId + '-' + version + ".jar");
+    }
+
+    /**
+     * Returns a repository system which resolves all artifacts from this repository only.
+     */
+    public RepositorySystem repositorySystem() {
+        return (RepositorySystem) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RepositorySystem.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "resolveArtifact":
+                    return resolve((ArtifactRequest) args[1]);
+                case "resolveArtifacts":
+                    return ((Collection<?>) args[1]).stream().map(r -> resolve((ArtifactRequest) r)).collect(Collectors.toList());
+                case "toString":
+                    return "StubRepositorySystem[" + root + ']';
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Returns an offline session with fresh session data.
+     */
+    public RepositorySystemSession session() {
+        final SessionData data = new DefaultSessionData();
+        return (RepositorySystemSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RepositorySystemSession.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getData":
+                    return data;
+                case "isOffline":
+                    return true;
+                case "toString":
+                    return "StubRepositorySystemSession[" + root + ']';
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private ArtifactResult resolve(final ArtifactRequest request) {
+        final Artifact artifact = request.getArtifact();
+        final Path location = locate(artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+        if (!Files.exists(location))
+            throw new IllegalStateException("Artifact " + artifact + " not available in stub repository " + root);
+
+        final ArtifactResult result = new ArtifactResult(request);
+        result.setArtifact(artifact.setFile(location.toFile()));
+        return result;
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A generated and compiled JAX-RS project of configurable size.
+ * Each resource class has its own chain of entity types, which reference types of the generated dependency jars.
+ *
+ * @author Sebastian Daschner
+ */
+public class SyntheticProject {
+
+    private static final String PACKAGE = "com.example.synthetic";
+
+    private final Path sourceDirectory;
+    private final Path outputDirectory;
+    private final Path buildDirectory;
+    private final List<Path> dependencies = new ArrayList<>();
+
+    private SyntheticProject(final Path root) {
+        sourceDirectory = root.resolve("src/main/java");
+        outputDirectory = root.resolve("target/classes");
+        buildDirectory = root.resolve("target");
+    }
+
+    public Path getSourceDirectory() {
+        return sourceDirectory;
+    }
+
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public Path getBuildDirectory() {
+        return buildDirectory;
+    }
+
+    public List<Path> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Generates and compiles a project in the given directory.
+     *
+     * @param resources      The number of root resource classes
+     * @param methods        The number of resource methods per resource class
+     * @param entityDepth    The depth of the entity type graph per resource class
+     * @param dependencyJars The number of dependency jars, referenced by the entity types
+     */
+    public static SyntheticProject generate(final Path root, final int resources, final int methods, final int entityDepth,
+                                            final int dependencyJars) throws IOException {
+        final SyntheticProject project = new SyntheticProject(root);
+        Files.createDirectories(project.sourceDirectory);
+        Files.createDirectories(project.outputDirectory);
+
+        final Path libraries = root.resolve("libraries");
+        for (int i = 0; i < dependencyJars; i++)
+            project.dependencies.add(generateLibrary(libraries, i));
+
+        final Path packageDirectory = project.sourceDirectory.resolve(PACKAGE.replace('.', '/'));
+        Files.createDirectories(packageDirectory);
+
+        write(packageDirectory.resolve("JAXRSConfiguration.java"), "package " + PACKAGE + ";\n\n" +
+                "@javax.ws.rs.ApplicationPath(\"resources\")\n" +
+                "public class JAXRSConfiguration extends javax.ws.rs.core.Application {\n}\n");
+
+        for (int i = 0; i < resources; i++) {
+            for (int depth = 0; depth < entityDepth; depth++)
+                write(packageDirectory.resolve(entityName(i, depth) + ".java"), entity(i, depth, entityDepth, dependencyJars));
+            write(packageDirectory.resolve("Resource" + i + ".java"), resource(i, methods, entityDepth));
+        }
+
+        final List<Path> classPath = new ArrayList<>(project.dependencies);
+        classPath.add(StubRepository.codeSource(javax.ws.rs.Path.class));
+        compile(project.sourceDirectory, project.outputDirectory, classPath);
+
+        return project;
+    }
+
+    private static Path generateLibrary(final Path libraries, final int index) throws IOException {
+        final Path sources = libraries.resolve("lib" + index + "/src");
+        final Path classes = libraries.resolve("lib" + index + "/classes");
+        final Path packageDirectory = sources.resolve("com/example/lib" + index);
+        Files.createDirectories(packageDirectory);
+        Files.createDirectories(classes);
+
+        write(packageDirectory.resolve("Value" + index + ".java"), "package com.example.lib" + index + ";\n\n" +
+                "public class Value" + index + " {\n" +
+                "    private String value;\n" +
+                "    public String getValue() {\n        return value;\n    }\n" +
+                "    public void setValue(String value) {\n        this.value = value;\n    }\n" +
+                "}\n");
+        compile(sources, classes, new ArrayList<>());
+
+        final Path jar = libraries.resolve("lib" + index + ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (final Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static String entityName(final int resource, final int depth) {
+        return "Entity" + resource + '_' + depth;
+    }
+
+    private static String entity(final int resource, final int depth, final int entityDepth, final int dependencyJars) {
+        final StringBuilder builder = new StringBuilder("package " + PACKAGE + ";\n\n");
+        final String name = entityName(resource, depth);
+        builder.append("public class ").append(name).append(" {\n");
+        builder.append("    private long id;\n    private String name;\n");
+        builder.append("    public long getId() {\n        return id;\n    }\n");
+        builder.append("    public String getName() {\n        return name;\n    }\n");
+        if (depth + 1 < entityDepth) {
+            final String child = entityName(resource, depth + 1);
+            builder.append("    private java.util.List<").append(child).append("> children;\n");
+            builder.append("    public java.util.List<").append(child).append("> getChildren() {\n        return children;\n    }\n");
+        }
+        if (dependencyJars > 0) {
+            final int library = (resource + depth) % dependencyJars;
+            final String type = "com.example.lib" + library + ".Value" + library;
+            builder.append("    private ").append(type).append(" value;\n");
+            builder.append("    public ").append(type).append(" getValue() {\n        return value;\n    }\n");
+        }
+        return builder.append("}\n").toString();
+    }
+
+    private static String resource(final int resource, final int methods, final int entityDepth) {
+        final String entity = entityDepth > 0 ? entityName(resource, 0) : "String";
+        final StringBuilder builder = new StringBuilder("package " + PACKAGE + ";\n\n");
+        builder.append("import javax.ws.rs.*;\nimport javax.ws.rs.core.*;\n\n");
+        builder.append("/**\n * Synthetic resource ").append(resource).append(".\n */\n");
+        builder.append("@Path(\"resource").append(resource).append("\")\n");
+        builder.append("@Produces(MediaType.APPLICATION_JSON)\n@Consumes(MediaType.APPLICATION_JSON)\n");
+        builder.append("public class Resource").append(resource).append(" {\n\n");
+        for (int i = 0; i < methods; i++) {
+            builder.append("    /**\n     * Synthetic method ").append(i).append(".\n     */\n");
+            switch (i % 3) {
+                case 0:
+                    builder.append("    @GET\n    @Path(\"m").append(i).append("/{id}\")\n");
+                    builder.append("    public ").append(entity).append(" get").append(i)
+                            .append("(@PathParam(\"id\") long id, @QueryParam(\"filter\") String filter) {\n");
+                    builder.append("        return ").append(entityDepth > 0 ? "new " + entity + "()" : "\"\"").append(";\n    }\n\n");
+                    break;
+                case 1:
+                    builder.append("    @POST\n    @Path(\"m").append(i).append("\")\n");
+                    builder.append("    public Response create").append(i).append("(").append(entity).append(" entity) {\n");
+                    builder.append("        return Response.accepted().header(\"X-Id\", ").append(i).append(").build();\n    }\n\n");
+                    break;
+                default:
+                    builder.append("    @DELETE\n    @Path(\"m").append(i).append("/{id}\")\n");
+                    builder.append("    public void delete").append(i).append("(@PathParam(\"id\") long id) {\n    }\n\n");
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+
+    private static void write(final Path file, final String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void compile(final Path sources, final Path output, final List<Path> classPath) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("No Java compiler available, the benchmarks have to run on a JDK");
+
+        final List<String> arguments = new ArrayList<>();
+        arguments.add("-d");
+        arguments.add(output.toString());
+        arguments.add("-encoding");
+        arguments.add("UTF-8");
+        if (!classPath.isEmpty()) {
+            arguments.add("-cp");
+            arguments.add(classPath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+        }
+        try (Stream<Path> files = Files.walk(sources)) {
+            files.filter(p -> p.toString().endsWith(".java")).map(Path::toString).forEach(arguments::add);
+        }
+
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, arguments.toArray(new String[0])) != 0)
+            throw new IOException("Could not compile synthetic project: " + new String(errors.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.analysis.ProjectAnalyzer;
+import com.sebastian_daschner.jaxrs_analyzer.backend.StringBackend;
+import com.sebastian_daschner.jaxrs_analyzer.backend.swagger.SwaggerOptions;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Base class for the goals which analyze JAX-RS resources, containing the backend and class path configuration.
+ *
+ * @author Sebastian Daschner
+ */
+public abstract class AbstractJAXRSAnalyzerMojo extends AbstractMojo {
+
+    /**
+     * The chosen backend format. Defaults to plaintext.
+     *
+     * @parameter default-value="plaintext" property="jaxrs-analyzer.backend"
+     */
+    private String backend;
+
+    /**
+     * The backend formats which are rendered from a single analysis, separated by comma.
+     * Takes precedence over the backend parameter, if set.
+     *
+     * @parameter property="jaxrs-analyzer.backends"
+     */
+    private String[] backends;
+
+    /**
+     * The domain where the project will be deployed.
+     *
+     * @parameter default-value="" property="jaxrs-analyzer.deployedDomain"
+     */
+    private String deployedDomain;
+
+    /**
+     * The Swagger schemes.
+     *
+     * @parameter default-value="http" property="jaxrs-analyzer.swaggerSchemes"
+     */
+    private String[] swaggerSchemes;
+
+    /**
+     * Specifies if Swagger tags should be generated.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.renderSwaggerTags"
+     */
+    private Boolean renderSwaggerTags;
+
+    /**
+     * The number at which path position the Swagger tags should be extracted.
+     *
+     * @parameter default-value="0" property="jaxrs-analyzer.swaggerTagsPathOffset"
+     */
+    private Integer swaggerTagsPathOffset;
+
+    /**
+     * Specifies if the Swagger document should be written resource by resource, without holding the whole document in memory.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.streamSwagger"
+     */
+    private Boolean streamSwagger;
+
+    /**
+     * Specifies if the generated files should be gzip-compressed, e.g. {@code swagger.json.gz}.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.compressOutput"
+     */
+    private Boolean compressOutput;
+
+    /**
+     * For plaintext and asciidoc backends, should they try to prettify inline JSON representation of requests/responses.
+     *
+     * @parameter default-value="true" property="jaxrs-analyzer.inlinePrettify"
+     */
+    private Boolean inlinePrettify;
+
+    /**
+     * @parameter property="project.build.sourceEncoding"
+     */
+    protected String encoding;
+
+    /**
+     * @parameter property="project"
+     * @required
+     * @readonly
+     */
+    protected MavenProject project;
+
+    /**
+     * The entry point to Aether.
+     *
+     * @component
+     */
+    private RepositorySystem repoSystem;
+
+    /**
+     * The current repository/network configuration of Maven.
+     *
+     * @parameter property="repositorySystemSession"
+     * @required
+     * @readonly
+     */
+    private RepositorySystemSession repoSession;
+
+    /**
+     * The project's remote repositories to use for the resolution of plugins and their dependencies.
+     *
+     * @parameter property="project.remotePluginRepositories"
+     * @required
+     * @readonly
+     */
+    private List<RemoteRepository> remoteRepos;
+
+    /**
+     * Path, relative to outputDir, to generate resources
+     *
+     * @parameter default-value="jaxrs-analyzer" property="jaxrs-analyzer.resourcesDir"
+     */
+    protected String resourcesDir;
+
+    /**
+     * JAX-RS root resource classes that will be ignored by the analyzer.
+     * The fully-qualified class names of classes to be ignored as JAX-RS root resources, separated by comma.
+     * Please note that the classes still might be considered as sub-resources, included in other root resources.
+     *
+     * @parameter default-value="" property="jaxrs-analyzer.ignoredRootResources"
+     */
+    protected String[] ignoredRootResources;
+
+    /**
+     * Dependencies which are put on the analysis class path, as patterns of the form groupId[:artifactId[:scope]], separated by comma.
+     * Segments may contain * wildcards. Defaults to all dependencies.
+     *
+     * @parameter property="jaxrs-analyzer.includedDependencies"
+     */
+    private String[] includedDependencies;
+
+    /**
+     * Dependencies which are kept off the analysis class path, as patterns of the form groupId[:artifactId[:scope]], separated by comma.
+     * Segments may contain * wildcards.
+     *
+     * @parameter property="jaxrs-analyzer.excludedDependencies"
+     */
+    private String[] excludedDependencies;
+
+    /**
+     * Specifies if dependencies which don't contain any type reachable from the project classes should be removed from the analysis class path.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.pruneClassPath"
+     */
+    protected Boolean pruneClassPath;
+
+    /**
+     * Specifies if only the source files of classes which use the JAX-RS API and of the project classes reachable from them should be parsed for JavaDoc.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.restrictSourcePaths"
+     */
+    protected Boolean restrictSourcePaths;
+
+    /**
+     * Specifies if only the JAX-RS resource classes and the project classes reachable from them should be analyzed.
+     * The resource classes are found by scanning the constant pools of the class files.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.restrictProjectClasses"
+     */
+    protected Boolean restrictProjectClasses;
+
+    /**
+     * The number of threads which hash, index and read class files. Defaults to the number of available processors.
+     *
+     * @parameter default-value="0" property="jaxrs-analyzer.parallelism"
+     */
+    private Integer parallelism;
+
+    private static final String INTERNAL_DEPENDENCIES_KEY = AbstractJAXRSAnalyzerMojo.class.getName() + ".internalDependencies";
+    private static final String CLASS_PATH_CACHE_KEY = AbstractJAXRSAnalyzerMojo.class.getName() + ".classPathCache";
+
+    /**
+     * The project context key of the analyzed {@link ApiDiff.Endpoints endpoints}, which are shared with later goals of the same build.
+     */
+    protected static final String ENDPOINTS_CONTEXT_KEY = AbstractJAXRSAnalyzerMojo.class.getName() + ".endpoints";
+    private static final String STAGED_SOURCES_DIRECTORY = "jaxrs-analyzer-sources";
+    private static final String STAGED_CLASSES_DIRECTORY = "jaxrs-analyzer-classes";
+    protected static final String SOURCE_ENCODING_PROPERTY = "project.build.sourceEncoding";
+
+    /**
+     * The analyzer keeps its class loader and job registry in static state, therefore analyses within the same JVM must not overlap.
+     */
+    private static final Object ANALYSIS_LOCK = new Object();
+
+    protected static Resources analyze(final Set<Path> classPaths, final Set<Path> projectPaths, final Set<Path> sourcePaths,
+                                       final Set<String> ignoredResources) {
+        synchronized (ANALYSIS_LOCK) {
+            return new ProjectAnalyzer(classPaths).analyze(projectPaths, sourcePaths, ignoredResources);
+        }
+    }
+
+    /**
+     * Analyzes the sources with the given encoding, e.g. of a module, and restores the previous source encoding afterwards.
+     */
+    protected static Resources analyze(final Set<Path> classPaths, final Set<Path> projectPaths, final Set<Path> sourcePaths,
+                                       final Set<String> ignoredResources, final String encoding) {
+        synchronized (ANALYSIS_LOCK) {
+            final String previousEncoding = System.getProperty(SOURCE_ENCODING_PROPERTY);
+            setSourceEncoding(encoding);
+            try {
+                return new ProjectAnalyzer(classPaths).analyze(projectPaths, sourcePaths, ignoredResources);
+            } finally {
+                setSourceEncoding(previousEncoding);
+            }
+        }
+    }
+
+    private static void setSourceEncoding(final String encoding) {
+        if (encoding == null)
+            System.clearProperty(SOURCE_ENCODING_PROPERTY);
+        else
+            System.setProperty(SOURCE_ENCODING_PROPERTY, encoding);
+    }
+
+    /**
+     * Runs the task in a pool of the configured parallelism; parallel streams within the task use the same pool.
+     */
+    protected <T> T runParallel(final Callable<T> task) throws MojoExecutionException {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism == null || parallelism < 1 ? Runtime.getRuntime().availableProcessors() : parallelism);
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Execution was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException)
+                throw (MojoExecutionException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the class path of the analysis: the project dependencies, pruned if configured, and the internal dependencies.
+     */
+    protected Set<Path> getAnalysisClassPaths(final Set<Path> projectPaths) throws MojoExecutionException {
+        final Set<Path> dependencies = getDependencies(project);
+        final Set<Path> internalDependencies = getInternalDependencies();
+        if (pruneClassPath) {
+            return runParallel(() -> {
+                try (ClassPathPruner pruner = new ClassPathPruner(dependencies, getClassPathCache())) {
+                    return pruneDependencies(pruner, dependencies, internalDependencies, projectPaths);
+                }
+            });
+        }
+
+        final Set<Path> classPaths = new HashSet<>(dependencies);
+        classPaths.addAll(internalDependencies);
+        return classPaths;
+    }
+
+    protected Set<Path> pruneDependencies(final ClassPathPruner pruner, final Set<Path> dependencies, final Set<Path> internalDependencies,
+                                          final Set<Path> projectPaths) {
+        final Set<Path> classPaths = pruner.prune(projectPaths, dependencies);
+        // the internal dependencies are always needed
+        classPaths.addAll(internalDependencies);
+        LogProvider.debug("Pruned dependency class paths are: " + classPaths);
+        return classPaths;
+    }
+
+    /**
+     * Returns the source paths which are parsed by the analyzer, either the source directory or the staged relevant source files.
+     */
+    protected Set<Path> getAnalysisSourcePaths(final Set<Path> projectPaths, final Path sourceDirectory, final Path buildDirectory) throws MojoExecutionException {
+        if (!restrictSourcePaths)
+            return Collections.singleton(sourceDirectory);
+
+        final Path stagingDirectory = buildDirectory.resolve(STAGED_SOURCES_DIRECTORY);
+        runParallel(() -> {
+            try {
+                return SourceStager.stage(projectPaths, sourceDirectory, stagingDirectory);
+            } catch (IOException | UncheckedIOException e) {
+                throw new MojoExecutionException("Could not stage source files: " + e.getMessage(), e);
+            }
+        });
+        return Collections.singleton(stagingDirectory);
+    }
+
+    /**
+     * Returns the project paths which are analyzed, either the given project paths or the staged resource classes and the
+     * classes reachable from them. In the latter case the given project paths are added to the class paths, so that all
+     * project classes remain resolvable.
+     */
+    protected Set<Path> getAnalysisProjectPaths(final Set<Path> projectPaths, final Set<Path> classPaths, final Path buildDirectory) throws MojoExecutionException {
+        if (!restrictProjectClasses)
+            return projectPaths;
+
+        final Path stagingDirectory = buildDirectory.resolve(STAGED_CLASSES_DIRECTORY);
+        runParallel(() -> {
+            try {
+                return ResourceClassStager.stage(projectPaths, stagingDirectory);
+            } catch (IOException | UncheckedIOException e) {
+                throw new MojoExecutionException("Could not stage class files: " + e.getMessage(), e);
+            }
+        });
+        classPaths.addAll(projectPaths);
+        return Collections.singleton(stagingDirectory);
+    }
+
+    protected void handleSourceEncoding() {
+        if (encoding != null && System.getProperty(SOURCE_ENCODING_PROPERTY) == null)
+            System.setProperty(SOURCE_ENCODING_PROPERTY, encoding);
+    }
+
+    protected List<BackendType> getBackendTypes() {
+        if (backends == null || backends.length == 0)
+            return Collections.singletonList(getBackendType(backend));
+
+        return Stream.of(backends).map(String::trim).map(this::getBackendType).distinct().collect(Collectors.toList());
+    }
+
+    private BackendType getBackendType(final String backend) {
+        switch (backend.toLowerCase()) {
+            case "plaintext":
+                return BackendType.PLAINTEXT;
+            case "asciidoc":
+                return BackendType.ASCIIDOC;
+            case "markdown":
+                return BackendType.MARKDOWN;
+            case "swagger":
+                return BackendType.SWAGGER;
+            case "binary":
+                return BackendType.BINARY;
+            default:
+                throw new IllegalArgumentException("Backend " + backend + " not valid! Valid values are: " +
+                        Stream.of(BackendType.values()).map(Enum::name).map(String::toLowerCase).collect(joining(", ")));
+        }
+    }
+
+    protected Map<String, String> getBackendConfig() {
+        final Map<String, String> config = new HashMap<>();
+        config.put(SwaggerOptions.SWAGGER_SCHEMES, Stream.of(swaggerSchemes).collect(joining(",")));
+        config.put(SwaggerOptions.DOMAIN, deployedDomain);
+        config.put(SwaggerOptions.RENDER_SWAGGER_TAGS, renderSwaggerTags.toString());
+        config.put(SwaggerOptions.SWAGGER_TAGS_PATH_OFFSET, swaggerTagsPathOffset.toString());
+        config.put(StringBackend.INLINE_PRETTIFY, inlinePrettify.toString());
+        config.put(BackendRenderer.STREAM_SWAGGER, streamSwagger.toString());
+        config.put(BackendRenderer.COMPRESS_OUTPUT, compressOutput.toString());
+        return config;
+    }
+
+    protected void injectMavenLoggers() {
+        LogProvider.injectInfoLogger(getLog()::info);
+        LogProvider.injectDebugLogger(getLog()::debug);
+        LogProvider.injectErrorLogger(getLog()::error);
+    }
+
+    protected Set<Path> getDependencies(final MavenProject project) {
+        project.setArtifactFilter(a -> true);
+
+        Set<Artifact> artifacts = project.getArtifacts();
+        if (artifacts.isEmpty()) {
+            artifacts = project.getDependencyArtifacts();
+        }
+
+        // the coordinates are filtered before any file is accessed
+        final DependencyFilter filter = new DependencyFilter(includedDependencies, excludedDependencies);
+        return artifacts.stream().filter(a -> !a.getScope().equals(Artifact.SCOPE_TEST)).filter(filter).map(Artifact::getFile)
+                .filter(Objects::nonNull).map(File::toPath).collect(Collectors.toSet());
+    }
+
+    protected Set<Path> getInternalDependencies() throws MojoExecutionException {
+        // Java EE 7 and JAX-RS Analyzer API is needed internally
+        final List<String> artifactIdentifiers = Arrays.asList("javax:javaee-api:7.0", "com.sebastian-daschner:jaxrs-analyzer:" + getAnalyzerVersion());
+
+        // resolved once per session, shared by all module executions
+        final String key = INTERNAL_DEPENDENCIES_KEY + artifactIdentifiers;
+        @SuppressWarnings("unchecked")
+        final Set<Path> cached = (Set<Path>) repoSession.getData().get(key);
+        if (cached != null && cached.stream().allMatch(Files::exists)) {
+            LogProvider.debug("Using resolved artifacts " + cached + " of the current session");
+            return new HashSet<>(cached);
+        }
+
+        final Set<Path> dependencies = fetchDependencies(artifactIdentifiers);
+        repoSession.getData().set(key, Collections.unmodifiableSet(new HashSet<>(dependencies)));
+        return dependencies;
+    }
+
+    /**
+     * Returns the class path cache of the current session, which is shared by all module executions.
+     */
+    protected ClassPathCache getClassPathCache() {
+        final ClassPathCache cached = (ClassPathCache) repoSession.getData().get(CLASS_PATH_CACHE_KEY);
+        if (cached != null)
+            return cached;
+
+        final ClassPathCache cache = new ClassPathCache(getJarIndexDirectory());
+        // concurrently executed modules share the first stored instance
+        if (repoSession.getData().set(CLASS_PATH_CACHE_KEY, null, cache))
+            return cache;
+        return (ClassPathCache) repoSession.getData().get(CLASS_PATH_CACHE_KEY);
+    }
+
+    /**
+     * Returns the directory of the data which is shared by all executions of the current user.
+     */
+    protected static Path getUserDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".jaxrs-analyzer");
+    }
+
+    private static Path getJarIndexDirectory() {
+        return getUserDirectory().resolve("index");
+    }
+
+    protected String getAnalyzerVersion() {
+        return project.getPluginArtifactMap().get("com.sebastian-daschner:jaxrs-analyzer-maven-plugin").getVersion();
+    }
+
+    private Set<Path> fetchDependencies(final List<String> artifactIdentifiers) throws MojoExecutionException {
+        final List<ArtifactRequest> requests = artifactIdentifiers.stream()
+                .map(DefaultArtifact::new)
+                .map(a -> new ArtifactRequest().setArtifact(a).setRepositories(remoteRepos))
+                .collect(Collectors.toList());
+
+        LogProvider.debug("Resolving artifacts " + artifactIdentifiers + " from " + remoteRepos);
+
+        final List<ArtifactResult> results;
+        try {
+            results = repoSystem.resolveArtifacts(repoSession, requests);
+        } catch (ArtifactResolutionException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        final Set<Path> dependencies = new HashSet<>();
+        for (final ArtifactResult result : results) {
+            LogProvider.debug("Resolved artifact " + result.getArtifact() + " to " + result.getArtifact().getFile() + " from " + result.getRepository());
+            dependencies.add(result.getArtifact().getFile().toPath());
+        }
+        return dependencies;
+    }
+
+}
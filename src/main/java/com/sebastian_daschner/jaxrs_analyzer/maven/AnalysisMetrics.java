@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings of the phases and counts of a single analysis run.
+ * Phases which are recorded several times, e.g. rendering of multiple backends, are summed up.
+ *
+ * @author Sebastian Daschner
+ */
+class AnalysisMetrics {
+
+    static final String DEPENDENCY_RESOLUTION = "dependencyResolution";
+    static final String FINGERPRINT = "fingerprint";
+    static final String CLASS_PATH_INDEXING = "classPathIndexing";
+    static final String SOURCE_STAGING = "sourceStaging";
+    static final String CLASS_STAGING = "classStaging";
+    static final String ANALYSIS = "analysis";
+    static final String RENDERING = "rendering";
+    static final String FILE_WRITE = "fileWrite";
+
+    static final String CLASSES_SCANNED = "classesScanned";
+    static final String RESOURCES_FOUND = "resourcesFound";
+    static final String JARS_OPENED = "jarsOpened";
+    static final String FILES_UNCHANGED = "filesUnchanged";
+    static final String PEAK_HEAP_MEGABYTES = "peakHeapMegabytes";
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private boolean skipped;
+
+    /**
+     * Records the time since the given start, as returned by {@link System#nanoTime()}.
+     */
+    synchronized void record(final String phase, final long start) {
+        phases.merge(phase, System.nanoTime() - start, Long::sum);
+    }
+
+    synchronized void count(final String name, final long count) {
+        counts.merge(name, count, Long::sum);
+    }
+
+    synchronized void setSkipped(final boolean skipped) {
+        this.skipped = skipped;
+    }
+
+    synchronized String format() {
+        final StringBuilder builder = new StringBuilder();
+        phases.forEach((k, v) -> builder.append(k).append(": ").append(TimeUnit.NANOSECONDS.toMillis(v)).append(" ms, "));
+        counts.forEach((k, v) -> builder.append(k).append(": ").append(v).append(", "));
+        return builder.length() == 0 ? "" : builder.substring(0, builder.length() - 2);
+    }
+
+    /**
+     * Writes the metrics as JSON document, the phase timings are given in milliseconds.
+     */
+    synchronized void write(final Path location) throws IOException {
+        final StringBuilder builder = new StringBuilder("{\n");
+        builder.append("  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+        builder.append("  \"skipped\": ").append(skipped).append(",\n");
+        builder.append("  \"phases\": {");
+        appendEntries(builder, phases, true);
+        builder.append("},\n  \"counts\": {");
+        appendEntries(builder, counts, false);
+        builder.append("}\n}\n");
+
+        Files.write(location, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendEntries(final StringBuilder builder, final Map<String, Long> entries, final boolean nanos) {
+        builder.append(entries.isEmpty() ? "" : "\n");
+        int index = 0;
+        for (final Map.Entry<String, Long> entry : entries.entrySet()) {
+            final long value = nanos ? TimeUnit.NANOSECONDS.toMillis(entry.getValue()) : entry.getValue();
+            builder.append("    \"").append(entry.getKey()).append("\": ").append(value);
+            builder.append(++index < entries.size() ? ",\n" : "\n");
+        }
+        if (!entries.isEmpty())
+            builder.append("  ");
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.analysis.ProjectAnalyzer;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived local analyzer process which keeps a warm JIT and class loading state across builds.
+ * The daemon only listens on the loopback interface and accepts requests which carry the secret token of its daemon file.
+ * Requests are processed one at a time; the daemon terminates after the given idle time.
+ * <p>
+ * Usage: {@code AnalyzerDaemon <daemon file> <idle timeout in minutes>}
+ *
+ * @author Sebastian Daschner
+ */
+public final class AnalyzerDaemon {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final int REQUEST_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+    private static final String ENCODING_PROPERTY = "project.build.sourceEncoding";
+
+    private final Path daemonFile;
+    private final String token;
+
+    private AnalyzerDaemon(final Path daemonFile) {
+        this.daemonFile = daemonFile;
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        token = InputFingerprint.toHex(bytes);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: AnalyzerDaemon <daemon file> <idle timeout in minutes>");
+
+        LogProvider.injectInfoLogger(System.err::println);
+        LogProvider.injectErrorLogger(System.err::println);
+        LogProvider.injectDebugLogger(s -> {
+        });
+
+        new AnalyzerDaemon(Paths.get(args[0])).run(TimeUnit.MINUTES.toMillis(Long.parseLong(args[1])));
+    }
+
+    private void run(final long idleTimeout) throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) Math.min(idleTimeout, Integer.MAX_VALUE));
+            writeDaemonFile(server.getLocalPort());
+            LogProvider.info("Analyzer daemon listening on port " + server.getLocalPort());
+
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    handle(socket);
+                } catch (SocketTimeoutException e) {
+                    LogProvider.info("Analyzer daemon idle, shutting down");
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    // a single broken request must not stop the daemon
+                    LogProvider.error("Could not handle request: " + e);
+                }
+            }
+        } finally {
+            deleteDaemonFile();
+        }
+    }
+
+    /**
+     * Creates the directory of the daemon file. On POSIX file systems the directory is only accessible by the current user,
+     * also if it already existed.
+     */
+    static void createDaemonDirectory(final Path directory) throws IOException {
+        if (!isPosix(directory)) {
+            Files.createDirectories(directory);
+            return;
+        }
+
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        // the directory might have been created before, e.g. for the jar indexes
+        Files.setPosixFilePermissions(directory, OWNER_ONLY_DIRECTORY);
+    }
+
+    private static boolean isPosix(final Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private void writeDaemonFile(final int port) throws IOException {
+        createDaemonDirectory(daemonFile.getParent());
+        final Path temporary = daemonFile.resolveSibling(daemonFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+
+        // the token must never be readable by others, therefore the file is created with restricted permissions
+        if (isPosix(temporary))
+            Files.createFile(temporary, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+        else
+            Files.createFile(temporary);
+        Files.write(temporary, (port + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE);
+        Files.move(temporary, daemonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteDaemonFile() throws IOException {
+        // the file might have been replaced by another daemon in the meantime
+        final List<String> lines = Files.exists(daemonFile) ? Files.readAllLines(daemonFile, StandardCharsets.UTF_8) : null;
+        if (lines != null && lines.size() > 1 && lines.get(1).equals(token))
+            Files.delete(daemonFile);
+    }
+
+    private void handle(final Socket socket) throws IOException {
+        // a stalled client must not block the daemon, the analysis itself starts after the request has been read
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+            LogProvider.error("Rejected request with invalid token");
+            return;
+        }
+
+        try {
+            final int resources = analyze(DaemonRequest.read(in));
+            out.writeBoolean(true);
+            out.writeInt(resources);
+            out.writeUTF("");
+        } catch (Exception | LinkageError e) {
+            LogProvider.error("Analysis failed: " + e);
+            out.writeBoolean(false);
+            out.writeInt(0);
+            out.writeUTF(String.valueOf(e));
+        }
+        out.flush();
+    }
+
+    private static int analyze(final DaemonRequest request) throws Exception {
+        // the encoding of one build must not leak into the next request
+        final String previousEncoding = System.getProperty(ENCODING_PROPERTY);
+        setEncoding(request.encoding);
+        try {
+            final Resources resources = new ProjectAnalyzer(request.classPaths).analyze(request.projectPaths, request.sourcePaths, request.ignoredResources);
+            // shared with the diff goal of the build
+            ApiDiff.describe(resources).write(request.resourcesDirectory.resolve(ApiDiff.ENDPOINTS_FILE));
+            if (resources.isEmpty())
+                return 0;
+
+            new BackendRenderer(request.backendConfig, request.resourcesDirectory)
+                    .render(new Project(request.projectName, request.projectVersion, resources), request.backendTypes);
+            return resources.getResources().size();
+        } finally {
+            setEncoding(previousEncoding);
+        }
+    }
+
+    private static void setEncoding(final String encoding) {
+        if (encoding == null)
+            System.clearProperty(ENCODING_PROPERTY);
+        else
+            System.setProperty(ENCODING_PROPERTY, encoding);
+    }
+
+}
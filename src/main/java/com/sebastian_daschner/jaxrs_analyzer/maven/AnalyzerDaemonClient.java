@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Hands analyses to the {@link AnalyzerDaemon}, which is started on demand with the class path of the plugin.
+ *
+ * @author Sebastian Daschner
+ */
+class AnalyzerDaemonClient {
+
+    private static final long STARTUP_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final Path daemonFile;
+    private final int idleTimeout;
+
+    /**
+     * @param daemonFile  The file which contains the port and token of the running daemon
+     * @param idleTimeout The idle time in minutes after which a started daemon terminates
+     */
+    AnalyzerDaemonClient(final Path daemonFile, final int idleTimeout) {
+        this.daemonFile = daemonFile;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Performs the analysis and rendering in the daemon and returns the number of found resources.
+     */
+    int analyze(final DaemonRequest request) throws IOException {
+        Socket socket = connect();
+        if (socket == null) {
+            start();
+            socket = awaitStartup();
+        }
+
+        try (Socket connection = socket) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            out.writeUTF(readDaemonFile().get(1));
+            request.write(out);
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            final boolean success = in.readBoolean();
+            final int resources = in.readInt();
+            final String message = in.readUTF();
+            if (!success)
+                throw new IOException("Analysis in daemon failed: " + message);
+            return resources;
+        }
+    }
+
+    private Socket connect() {
+        try {
+            final List<String> lines = readDaemonFile();
+            if (lines.size() < 2)
+                return null;
+            return new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(lines.get(0)));
+        } catch (IOException | NumberFormatException e) {
+            LogProvider.debug("No analyzer daemon available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> readDaemonFile() throws IOException {
+        return Files.readAllLines(daemonFile, StandardCharsets.UTF_8);
+    }
+
+    private void start() throws IOException {
+        Files.deleteIfExists(daemonFile);
+        AnalyzerDaemon.createDaemonDirectory(daemonFile.getParent());
+
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final Path logFile = daemonFile.resolveSibling(daemonFile.getFileName() + ".log");
+
+        LogProvider.info("Starting analyzer daemon, logging to " + logFile);
+        new ProcessBuilder(java, "-cp", getClassPath(), AnalyzerDaemon.class.getName(), daemonFile.toString(), String.valueOf(idleTimeout))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()))
+                .start();
+    }
+
+    private Socket awaitStartup() throws IOException {
+        final long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            final Socket socket = Files.exists(daemonFile) ? connect() : null;
+            if (socket != null)
+                return socket;
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for analyzer daemon");
+            }
+        }
+        throw new IOException("Analyzer daemon did not start within " + STARTUP_TIMEOUT + " ms");
+    }
+
+    /**
+     * Returns the class path of the plugin realm, together with the Maven plugin API which is provided by Maven itself.
+     */
+    private static String getClassPath() throws IOException {
+        final ClassLoader classLoader = AnalyzerDaemonClient.class.getClassLoader();
+        if (!(classLoader instanceof URLClassLoader))
+            throw new IOException("Plugin class path is not available");
+
+        final Set<String> classPath = new LinkedHashSet<>();
+        try {
+            for (final URL url : ((URLClassLoader) classLoader).getURLs())
+                classPath.add(Paths.get(url.toURI()).toString());
+            classPath.add(Paths.get(MojoExecutionException.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        } catch (URISyntaxException e) {
+            throw new IOException("Could not determine plugin class path", e);
+        }
+        return classPath.stream().collect(Collectors.joining(File.pathSeparator));
+    }
+
+}
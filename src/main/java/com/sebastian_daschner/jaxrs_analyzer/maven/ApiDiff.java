@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.MethodParameter;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.ResourceMethod;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The differences between the endpoints of a baseline Swagger document and of an analyzed project.
+ * Endpoints are identified by HTTP method and path, relative to the base path, and compared by their parameters and
+ * response status codes.
+ *
+ * @author Sebastian Daschner
+ */
+class ApiDiff {
+
+    /**
+     * The file of the resources directory which holds the {@link Endpoints} of the last analysis.
+     */
+    static final String ENDPOINTS_FILE = ".endpoints";
+
+    private static final Set<String> HTTP_METHODS = new HashSet<>(Arrays.asList("get", "put", "post", "delete", "head", "options", "patch"));
+    private static final Pattern PATH_PARAMETER = Pattern.compile("\\{\\s*([^}:\\s]+)\\s*(:[^}]*)?}");
+
+    private final String baselineBasePath;
+    private final String currentBasePath;
+    private final Set<String> added = new TreeSet<>();
+    private final Set<String> removed = new TreeSet<>();
+    private final Map<String, String> changed = new TreeMap<>();
+
+    private ApiDiff(final Endpoints baseline, final Endpoints current) {
+        baselineBasePath = baseline.basePath;
+        currentBasePath = current.basePath;
+
+        current.signatures.keySet().stream().filter(e -> !baseline.signatures.containsKey(e)).forEach(added::add);
+        baseline.signatures.forEach((endpoint, signature) -> {
+            final String currentSignature = current.signatures.get(endpoint);
+            if (currentSignature == null)
+                removed.add(endpoint);
+            else if (!currentSignature.equals(signature))
+                changed.put(endpoint, signature + " -> " + currentSignature);
+        });
+    }
+
+    /**
+     * Compares the endpoints of the Swagger document, which is read in a streaming fashion, with the analyzed endpoints.
+     */
+    static ApiDiff compare(final Path baseline, final Endpoints current) throws IOException {
+        return new ApiDiff(readSwagger(baseline), current);
+    }
+
+    Set<String> getAdded() {
+        return added;
+    }
+
+    Set<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the changed endpoints together with a description of the previous and current signature.
+     */
+    Map<String, String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Returns if the base path changed. The baseline base path may contain an additional context root.
+     */
+    boolean isBasePathChanged() {
+        return !currentBasePath.isEmpty() && !baselineBasePath.equals(currentBasePath) && !baselineBasePath.endsWith('/' + currentBasePath);
+    }
+
+    String getBaselineBasePath() {
+        return baselineBasePath;
+    }
+
+    String getCurrentBasePath() {
+        return currentBasePath;
+    }
+
+    /**
+     * Returns if endpoints were removed or changed, or if the base path changed.
+     */
+    boolean isIncompatible() {
+        return !removed.isEmpty() || !changed.isEmpty() || isBasePathChanged();
+    }
+
+    /**
+     * Returns the endpoint signatures of the analyzed resources, which are considerably smaller than the resources.
+     */
+    static Endpoints describe(final Resources resources) {
+        final Endpoints endpoints = new Endpoints(normalizePath(resources.getBasePath()));
+        for (final String resource : resources.getResources()) {
+            for (final ResourceMethod method : resources.getMethods(resource)) {
+                final Set<String> parameters = method.getMethodParameters().stream().map(ApiDiff::describe).filter(Objects::nonNull)
+                        .collect(Collectors.toCollection(TreeSet::new));
+                if (method.getRequestBody() != null)
+                    parameters.add("body");
+
+                endpoints.add(method.getMethod().name(), resource, parameters, method.getResponses().keySet().stream().map(String::valueOf).collect(Collectors.toSet()));
+            }
+        }
+        return endpoints;
+    }
+
+    private static String describe(final MethodParameter parameter) {
+        switch (parameter.getParameterType()) {
+            case PATH:
+                return "path:" + parameter.getName();
+            case QUERY:
+                return "query:" + parameter.getName();
+            case HEADER:
+                return "header:" + parameter.getName();
+            case FORM:
+                return "formData:" + parameter.getName();
+            default:
+                // not represented in Swagger documents
+                return null;
+        }
+    }
+
+    private static Endpoints readSwagger(final Path location) throws IOException {
+        try (InputStream in = open(location);
+             JsonParser parser = Json.createParser(in)) {
+            String basePath = "";
+            final Map<String, Map<String, Operation>> paths = new HashMap<>();
+
+            parser.next();
+            while (parser.next() == JsonParser.Event.KEY_NAME) {
+                final String name = parser.getString();
+                final JsonParser.Event event = parser.next();
+                if ("basePath".equals(name) && event == JsonParser.Event.VALUE_STRING) {
+                    basePath = parser.getString();
+                } else if ("paths".equals(name) && event == JsonParser.Event.START_OBJECT) {
+                    while (parser.next() == JsonParser.Event.KEY_NAME) {
+                        final String path = parser.getString();
+                        paths.put(path, readOperations(parser, parser.next()));
+                    }
+                } else {
+                    skip(parser, event);
+                }
+            }
+
+            final Endpoints endpoints = new Endpoints(normalizePath(basePath));
+            paths.forEach((path, operations) -> operations.forEach((method, operation) ->
+                    endpoints.add(method, path, operation.parameters, operation.responses)));
+            return endpoints;
+        } catch (JsonException | NoSuchElementException e) {
+            throw new IOException("Could not parse Swagger document " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream open(final Path location) throws IOException {
+        final InputStream in = new BufferedInputStream(Files.newInputStream(location));
+        return location.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+    }
+
+    private static Map<String, Operation> readOperations(final JsonParser parser, final JsonParser.Event event) {
+        final Map<String, Operation> operations = new HashMap<>();
+        if (event != JsonParser.Event.START_OBJECT) {
+            skip(parser, event);
+            return operations;
+        }
+
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            final String method = parser.getString();
+            final JsonParser.Event next = parser.next();
+            if (HTTP_METHODS.contains(method) && next == JsonParser.Event.START_OBJECT)
+                operations.put(method, readOperation(parser));
+            else
+                skip(parser, next);
+        }
+        return operations;
+    }
+
+    private static Operation readOperation(final JsonParser parser) {
+        final Operation operation = new Operation();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            final String name = parser.getString();
+            final JsonParser.Event event = parser.next();
+            if ("parameters".equals(name) && event == JsonParser.Event.START_ARRAY) {
+                JsonParser.Event element;
+                while ((element = parser.next()) == JsonParser.Event.START_OBJECT)
+                    operation.parameters.add(readParameter(parser));
+                if (element != JsonParser.Event.END_ARRAY)
+                    skip(parser, element);
+            } else if ("responses".equals(name) && event == JsonParser.Event.START_OBJECT) {
+                while (parser.next() == JsonParser.Event.KEY_NAME) {
+                    operation.responses.add(parser.getString());
+                    skip(parser, parser.next());
+                }
+            } else {
+                skip(parser, event);
+            }
+        }
+        return operation;
+    }
+
+    private static String readParameter(final JsonParser parser) {
+        String name = null;
+        String location = null;
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            final String key = parser.getString();
+            final JsonParser.Event event = parser.next();
+            if ("name".equals(key) && event == JsonParser.Event.VALUE_STRING)
+                name = parser.getString();
+            else if ("in".equals(key) && event == JsonParser.Event.VALUE_STRING)
+                location = parser.getString();
+            else
+                skip(parser, event);
+        }
+        return "body".equals(location) ? "body" : location + ':' + name;
+    }
+
+    private static void skip(final JsonParser parser, final JsonParser.Event event) {
+        if (event != JsonParser.Event.START_OBJECT && event != JsonParser.Event.START_ARRAY)
+            return;
+
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static String normalizePath(final String path) {
+        if (path == null)
+            return "";
+        String normalized = PATH_PARAMETER.matcher(path).replaceAll("{$1}");
+        while (normalized.startsWith("/"))
+            normalized = normalized.substring(1);
+        while (normalized.endsWith("/"))
+            normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized;
+    }
+
+    /**
+     * The signatures of the endpoints of an API, keyed by HTTP method and path.
+     */
+    static class Endpoints {
+
+        private static final int FORMAT_VERSION = 1;
+
+        private final String basePath;
+        private final Map<String, String> signatures = new HashMap<>();
+
+        Endpoints(final String basePath) {
+            this.basePath = basePath;
+        }
+
+        /**
+         * Reads the endpoints from the given file, or returns {@code null} if the file is missing or unreadable.
+         */
+        static Endpoints read(final Path location) {
+            if (!Files.isRegularFile(location))
+                return null;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location)))) {
+                if (in.readInt() != FORMAT_VERSION)
+                    return null;
+
+                final Endpoints endpoints = new Endpoints(in.readUTF());
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++)
+                    endpoints.signatures.put(in.readUTF(), in.readUTF());
+                return endpoints;
+            } catch (IOException e) {
+                LogProvider.debug("Could not read endpoints " + location + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        void write(final Path location) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(location)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(basePath);
+                out.writeInt(signatures.size());
+                for (final Map.Entry<String, String> e : new TreeMap<>(signatures).entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(e.getValue());
+                }
+            }
+        }
+
+        void add(final String method, final String path, final Set<String> parameters, final Set<String> responses) {
+            signatures.put(method.toUpperCase() + " /" + normalizePath(path),
+                    "parameters " + new TreeSet<>(parameters) + ", responses " + new TreeSet<>(responses));
+        }
+
+    }
+
+    private static class Operation {
+
+        private final Set<String> parameters = new TreeSet<>();
+        private final Set<String> responses = new TreeSet<>();
+
+    }
+
+}
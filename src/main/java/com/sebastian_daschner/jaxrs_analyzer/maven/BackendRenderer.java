@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.JAXRSAnalyzer;
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.backend.Backend;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders an analyzed project with one or more backends and writes the results to the resources directory.
+ * Multiple backends are rendered concurrently, each into its own file, unless {@link #RENDER_SEQUENTIALLY} is enabled.
+ * The files are replaced atomically, readers never see partially written output.
+ * Files whose content didn't change are not touched, which keeps modification times and downstream caches valid.
+ * <p>
+ * If {@link #STREAM_SWAGGER} is enabled in the backend configuration the Swagger document is written by the
+ * {@link SwaggerStreamingWriter}, which doesn't hold the whole document in memory.
+ * If {@link #COMPRESS_OUTPUT} is enabled the output is gzip-compressed while it's written, to files with an additional
+ * {@code .gz} suffix.
+ *
+ * @author Sebastian Daschner
+ */
+class BackendRenderer {
+
+    static final String STREAM_SWAGGER = "streamSwagger";
+    static final String COMPRESS_OUTPUT = "compressOutput";
+    static final String RENDER_SEQUENTIALLY = "renderSequentially";
+
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    private final Map<String, String> config;
+    private final Path resourcesDirectory;
+    private final AnalysisMetrics metrics;
+
+    BackendRenderer(final Map<String, String> config, final Path resourcesDirectory) {
+        this(config, resourcesDirectory, new AnalysisMetrics());
+    }
+
+    BackendRenderer(final Map<String, String> config, final Path resourcesDirectory, final AnalysisMetrics metrics) {
+        this.config = config;
+        this.resourcesDirectory = resourcesDirectory;
+        this.metrics = metrics;
+    }
+
+    static Backend configureBackend(final BackendType backendType, final Map<String, String> config) throws IllegalArgumentException {
+        // the binary model is provided by the plugin itself
+        final Backend backend = backendType == BackendType.BINARY ? new BinaryModelBackend() : JAXRSAnalyzer.constructBackend(backendType.name());
+        backend.configure(config);
+
+        return backend;
+    }
+
+    Path getFileLocation(final BackendType backendType) {
+        final String fileLocation = backendType.getFileLocation();
+        return resourcesDirectory.resolve(isCompressed() ? fileLocation + COMPRESSED_SUFFIX : fileLocation);
+    }
+
+    private boolean isCompressed() {
+        return Boolean.parseBoolean(config.get(COMPRESS_OUTPUT));
+    }
+
+    void render(final Project project, final Collection<BackendType> backendTypes) throws MojoExecutionException {
+        if (backendTypes.size() == 1 || Boolean.parseBoolean(config.get(RENDER_SEQUENTIALLY))) {
+            for (final BackendType backendType : backendTypes) {
+                try {
+                    render(project, backendType);
+                } catch (UncheckedIOException e) {
+                    throw new MojoExecutionException("Could not render resources: " + e.getMessage(), e);
+                }
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(backendTypes.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final BackendType backendType : backendTypes) {
+                futures.add(executor.submit(() -> {
+                    render(project, backendType);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not render resources: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void render(final Project project, final BackendType backendType) {
+        final Backend backend = configureBackend(backendType, config);
+        final Path fileLocation = getFileLocation(backendType);
+
+        LogProvider.info("Generating resources at " + fileLocation.toAbsolutePath());
+
+        if (backendType == BackendType.SWAGGER && Boolean.parseBoolean(config.get(STREAM_SWAGGER)) && stream(project, fileLocation))
+            return;
+
+        long start = System.nanoTime();
+        final byte[] output = backend.render(project);
+        metrics.record(AnalysisMetrics.RENDERING, start);
+
+        start = System.nanoTime();
+        try {
+            write(fileLocation, output);
+            metrics.record(AnalysisMetrics.FILE_WRITE, start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the specified output location " + fileLocation, e);
+        }
+    }
+
+    private boolean stream(final Project project, final Path fileLocation) {
+        final long start = System.nanoTime();
+        final Path temporary = getTemporaryLocation(fileLocation);
+        try {
+            try {
+                final boolean streamed;
+                try (OutputStream output = open(temporary)) {
+                    streamed = new SwaggerStreamingWriter(config).write(project, output);
+                }
+                metrics.record(AnalysisMetrics.RENDERING, start);
+
+                if (!streamed) {
+                    LogProvider.info("Swagger documents of the single resources are inconsistent, rendering the whole document instead of streaming it");
+                    return false;
+                }
+                replace(temporary, fileLocation);
+                return true;
+            } finally {
+                // a discarded or failed document must not be left next to the output
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the specified output location " + fileLocation, e);
+        }
+    }
+
+    private void write(final Path fileLocation, final byte[] output) throws IOException {
+        final Path temporary = getTemporaryLocation(fileLocation);
+        if (isCompressed()) {
+            try (OutputStream out = open(temporary)) {
+                out.write(output);
+            }
+            replace(temporary, fileLocation);
+            return;
+        }
+
+        if (Files.isRegularFile(fileLocation) && Files.size(fileLocation) == output.length && Arrays.equals(Files.readAllBytes(fileLocation), output)) {
+            skipUnchanged(fileLocation);
+            return;
+        }
+
+        Files.write(temporary, output);
+        move(temporary, fileLocation);
+    }
+
+    private OutputStream open(final Path file) throws IOException {
+        final OutputStream output = Files.newOutputStream(file);
+        // the GZIP header doesn't contain a timestamp, unchanged content results in identical files
+        return isCompressed() ? new GZIPOutputStream(output, 8192) : new BufferedOutputStream(output);
+    }
+
+    private void replace(final Path temporary, final Path fileLocation) throws IOException {
+        if (Files.isRegularFile(fileLocation) && hasSameContent(temporary, fileLocation)) {
+            Files.delete(temporary);
+            skipUnchanged(fileLocation);
+            return;
+        }
+        move(temporary, fileLocation);
+    }
+
+    private void skipUnchanged(final Path fileLocation) {
+        LogProvider.debug("Content of " + fileLocation + " is unchanged, skipping write");
+        metrics.count(AnalysisMetrics.FILES_UNCHANGED, 1);
+    }
+
+    private static boolean hasSameContent(final Path first, final Path second) throws IOException {
+        if (Files.size(first) != Files.size(second))
+            return false;
+
+        try (InputStream firstInput = new BufferedInputStream(Files.newInputStream(first));
+             InputStream secondInput = new BufferedInputStream(Files.newInputStream(second))) {
+            int read;
+            do {
+                read = firstInput.read();
+                if (read != secondInput.read())
+                    return false;
+            } while (read != -1);
+            return true;
+        }
+    }
+
+    private static Path getTemporaryLocation(final Path fileLocation) {
+        return fileLocation.resolveSibling(fileLocation.getFileName() + ".tmp");
+    }
+
+    private static void move(final Path temporary, final Path fileLocation) throws IOException {
+        try {
+            Files.move(temporary, fileLocation, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, fileLocation, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
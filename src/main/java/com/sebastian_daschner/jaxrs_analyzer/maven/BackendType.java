@@ -13,7 +13,9 @@ enum BackendType {
 
     MARKDOWN("rest-resources.md"),
 
-    SWAGGER("swagger.json");
+    SWAGGER("swagger.json"),
+
+    BINARY("rest-resources.bin");
 
     private final String fileLocation;
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.backend.Backend;
+import com.sebastian_daschner.jaxrs_analyzer.maven.model.ApiModel;
+import com.sebastian_daschner.jaxrs_analyzer.maven.model.ApiModelWriter;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.*;
+import com.sebastian_daschner.jaxrs_analyzer.model.types.TypeIdentifier;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Backend which writes the analyzed resources in the binary model format, see {@link ApiModelWriter}.
+ * Resources, methods and types are written in a deterministic order, so unchanged projects result in identical files.
+ *
+ * @author Sebastian Daschner
+ */
+class BinaryModelBackend implements Backend {
+
+    @Override
+    public byte[] render(final Project project) {
+        return ApiModelWriter.write(toModel(project));
+    }
+
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private static final Comparator<ApiModel.Parameter> PARAMETER_ORDER = Comparator.comparing(ApiModel.Parameter::getLocation)
+            .thenComparing(ApiModel.Parameter::getName, NULLS_FIRST).thenComparing(ApiModel.Parameter::getType, NULLS_FIRST)
+            .thenComparing(ApiModel.Parameter::getDefaultValue, NULLS_FIRST);
+
+    /**
+     * Methods of a resource may share the HTTP method, e.g. if they consume or produce different media types.
+     */
+    private static final Comparator<ApiModel.Method> METHOD_ORDER = Comparator.comparing(ApiModel.Method::getHttpMethod)
+            .thenComparing(ApiModel.Method::getRequestMediaTypes, lexicographical(NULLS_FIRST))
+            .thenComparing(ApiModel.Method::getResponseMediaTypes, lexicographical(NULLS_FIRST))
+            .thenComparing(ApiModel.Method::getParameters, lexicographical(PARAMETER_ORDER))
+            .thenComparing(ApiModel.Method::getRequestBody, NULLS_FIRST)
+            .thenComparing(ApiModel.Method::getDescription, NULLS_FIRST);
+
+    @Override
+    public String getName() {
+        return "Binary model";
+    }
+
+    private static ApiModel toModel(final Project project) {
+        final Resources resources = project.getResources();
+
+        final Map<String, ApiModel.Type> types = new LinkedHashMap<>();
+        resources.getTypeRepresentations().values().stream().map(BinaryModelBackend::toType)
+                .sorted(Comparator.comparing(ApiModel.Type::getIdentifier)).forEach(t -> types.put(t.getIdentifier(), t));
+
+        final List<ApiModel.Resource> modelResources = new TreeSet<>(resources.getResources()).stream()
+                .map(r -> new ApiModel.Resource(r, resources.getMethods(r).stream().map(BinaryModelBackend::toMethod)
+                        .sorted(METHOD_ORDER).collect(Collectors.toList())))
+                .collect(Collectors.toList());
+
+        return new ApiModel(project.getName(), project.getVersion(), resources.getBasePath(), modelResources, types);
+    }
+
+    private static ApiModel.Type toType(final TypeRepresentation representation) {
+        final String identifier = representation.getIdentifier().getName();
+        final String javaType = representation.getIdentifier().getType();
+
+        if (representation instanceof TypeRepresentation.CollectionTypeRepresentation) {
+            final TypeIdentifier component = ((TypeRepresentation.CollectionTypeRepresentation) representation).getRepresentation();
+            return new ApiModel.Type(identifier, javaType, ApiModel.Type.Kind.COLLECTION, Collections.emptyMap(), name(component), Collections.emptyList());
+        }
+
+        if (representation instanceof TypeRepresentation.EnumTypeRepresentation) {
+            final List<String> values = new ArrayList<>(new TreeSet<>(((TypeRepresentation.EnumTypeRepresentation) representation).getEnumValues()));
+            return new ApiModel.Type(identifier, javaType, ApiModel.Type.Kind.ENUM, Collections.emptyMap(), null, values);
+        }
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        if (representation instanceof TypeRepresentation.ConcreteTypeRepresentation)
+            new TreeMap<>(((TypeRepresentation.ConcreteTypeRepresentation) representation).getProperties()).forEach((n, t) -> properties.put(n, name(t)));
+        return new ApiModel.Type(identifier, javaType, ApiModel.Type.Kind.CONCRETE, properties, null, Collections.emptyList());
+    }
+
+    private static ApiModel.Method toMethod(final ResourceMethod method) {
+        final List<ApiModel.Parameter> parameters = method.getMethodParameters().stream()
+                .map(p -> new ApiModel.Parameter(p.getParameterType().name(), p.getName(), name(p.getType()), p.getDefaultValue()))
+                .sorted(PARAMETER_ORDER)
+                .collect(Collectors.toList());
+
+        final List<ApiModel.Response> responses = new TreeMap<>(method.getResponses()).entrySet().stream()
+                .map(e -> new ApiModel.Response(e.getKey(), new ArrayList<>(new TreeSet<>(e.getValue().getHeaders())), name(e.getValue().getResponseBody())))
+                .collect(Collectors.toList());
+
+        return new ApiModel.Method(method.getMethod().name(), method.getDescription(), new ArrayList<>(new TreeSet<>(method.getRequestMediaTypes())),
+                new ArrayList<>(new TreeSet<>(method.getResponseMediaTypes())), parameters, name(method.getRequestBody()), responses);
+    }
+
+    private static <T> Comparator<List<T>> lexicographical(final Comparator<T> comparator) {
+        return (first, second) -> {
+            for (int i = 0; i < Math.min(first.size(), second.size()); i++) {
+                final int result = comparator.compare(first.get(i), second.get(i));
+                if (result != 0)
+                    return result;
+            }
+            return Integer.compare(first.size(), second.size());
+        };
+    }
+
+    private static String name(final TypeIdentifier identifier) {
+        return identifier == null ? null : identifier.getName();
+    }
+
+}
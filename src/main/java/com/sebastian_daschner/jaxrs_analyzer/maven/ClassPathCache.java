@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the {@link JarIndex jar indexes} and the class references of dependency jars for all executions of a Maven
+ * session. In reactor builds the modules mostly share their dependencies, e.g. the Java EE API, whose classes are then
+ * indexed and read only once per build instead of once per module.
+ * Cached jars are validated by their size and modification time. Executions which limit the number of cached class
+ * references use a {@link #withReferenceCapacity(int) view} of the session cache, which shares the jar indexes and
+ * already cached references but holds the further references itself. The cache is thread-safe.
+ *
+ * @author Sebastian Daschner
+ */
+class ClassPathCache {
+
+    private final Path indexDirectory;
+    private final Map<Path, CachedJar> jars;
+    private final ClassPathCache parent;
+    private final int referenceCapacity;
+    private final Map<CachedJar, Map<String, Set<String>>> references = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedReferences = new AtomicInteger();
+
+    ClassPathCache(final Path indexDirectory) {
+        this(indexDirectory, new ConcurrentHashMap<>(), null, Integer.MAX_VALUE);
+    }
+
+    private ClassPathCache(final Path indexDirectory, final Map<Path, CachedJar> jars, final ClassPathCache parent, final int referenceCapacity) {
+        this.indexDirectory = indexDirectory;
+        this.jars = jars;
+        this.parent = parent;
+        this.referenceCapacity = referenceCapacity;
+    }
+
+    /**
+     * Returns a cache for a single execution which shares the jar indexes and the cached references of this cache, but
+     * caches at most the given number of further class references. These references are only held by the returned
+     * cache and released together with it, other executions are not affected.
+     */
+    ClassPathCache withReferenceCapacity(final int capacity) {
+        return new ClassPathCache(indexDirectory, jars, this, capacity);
+    }
+
+    /**
+     * Returns the index of the given jar, which is loaded or created if it's not cached or outdated.
+     */
+    JarIndex getIndex(final Path jar) throws IOException {
+        return getJar(jar).index;
+    }
+
+    /**
+     * Returns the internal names of the classes which are referenced by the given class of the jar.
+     */
+    Set<String> getReferences(final Path jar, final String className) throws IOException {
+        final CachedJar cachedJar = getJar(jar);
+        final Set<String> cached = getCachedReferences(cachedJar, className);
+        if (cached != null)
+            return cached;
+
+        final Set<String> read = Collections.unmodifiableSet(ClassReferences.read(new ByteArrayInputStream(cachedJar.index.read(className))).getReferencedClasses());
+        if (cachedReferences.get() < referenceCapacity && references.computeIfAbsent(cachedJar, j -> new ConcurrentHashMap<>()).put(className, read) == null)
+            cachedReferences.incrementAndGet();
+        return read;
+    }
+
+    private Set<String> getCachedReferences(final CachedJar jar, final String className) {
+        final Map<String, Set<String>> jarReferences = references.get(jar);
+        final Set<String> cached = jarReferences != null ? jarReferences.get(className) : null;
+        if (cached != null || parent == null)
+            return cached;
+        return parent.getCachedReferences(jar, className);
+    }
+
+    private CachedJar getJar(final Path jar) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        final long size = attributes.size();
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+
+        final CachedJar cached = jars.get(jar);
+        if (cached != null && cached.size == size && cached.lastModified == lastModified)
+            return cached;
+
+        // concurrent executions may load the same jar, the last one wins
+        final CachedJar loaded = new CachedJar(size, lastModified, JarIndex.load(jar, indexDirectory));
+        final CachedJar replaced = jars.put(jar, loaded);
+        if (replaced != null)
+            release(replaced);
+        return loaded;
+    }
+
+    private void release(final CachedJar jar) {
+        final Map<String, Set<String>> released = references.remove(jar);
+        if (released != null)
+            cachedReferences.addAndGet(-released.size());
+        if (parent != null)
+            parent.release(jar);
+    }
+
+    private static class CachedJar {
+
+        private final long size;
+        private final long lastModified;
+        private final JarIndex index;
+
+        private CachedJar(final long size, final long lastModified, final JarIndex index) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.index = index;
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes dependency jars from the analysis class path which don't contain any type reachable from the project classes.
+ * Reachability is determined by following the constant pool references of the project classes and of all reached
+ * dependency classes, which covers entity types, sub-resources and annotations.
+ * Dependency directories, e.g. the output directories of other reactor modules, are always kept, but the references of
+ * their classes are followed as well.
+ * <p>
+ * The class path entries are indexed once on construction, so the same instance can prune the class paths of several
+ * projects which share dependencies. The {@link JarIndex jar indexes} and the references of the read jar classes are
+ * taken from the {@link ClassPathCache} of the Maven session, directory classes are read on every access as they may
+ * change during the build.
+ * Indexing and reading of class files use parallel streams, the reachable classes are followed level by level.
+ *
+ * @author Sebastian Daschner
+ */
+class ClassPathPruner implements AutoCloseable {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final ClassPathCache cache;
+    private final Map<Path, JarIndex> jarIndexes = new ConcurrentHashMap<>();
+    private final Map<Path, Set<String>> directoryClasses = new ConcurrentHashMap<>();
+    private final Map<String, List<Path>> index = new HashMap<>();
+
+    ClassPathPruner(final Set<Path> classPaths, final ClassPathCache cache) {
+        this.cache = cache;
+        classPaths.parallelStream().forEach(this::load);
+
+        jarIndexes.forEach((jar, jarIndex) -> jarIndex.getClassNames().forEach(n -> index.computeIfAbsent(n, k -> new ArrayList<>(1)).add(jar)));
+        directoryClasses.forEach((directory, classNames) -> classNames.forEach(n -> index.computeIfAbsent(n, k -> new ArrayList<>(1)).add(directory)));
+    }
+
+    private void load(final Path classPath) {
+        try {
+            if (Files.isRegularFile(classPath))
+                jarIndexes.put(classPath, cache.getIndex(classPath));
+            else if (Files.isDirectory(classPath))
+                directoryClasses.put(classPath, listClasses(classPath));
+        } catch (IOException | UncheckedIOException e) {
+            LogProvider.debug("Could not index " + classPath + ": " + e.getMessage());
+        }
+    }
+
+    private static Set<String> listClasses(final Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream.map(p -> directory.relativize(p).toString()).filter(p -> p.endsWith(CLASS_SUFFIX))
+                    .map(p -> p.substring(0, p.length() - CLASS_SUFFIX.length()).replace('\\', '/'))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Returns the entries of the given class path which are needed to analyze the given project paths.
+     */
+    Set<Path> prune(final Set<Path> projectPaths, final Set<Path> classPaths) {
+        // keep directories and jars which couldn't be indexed
+        final Set<Path> retained = ConcurrentHashMap.newKeySet();
+        classPaths.stream().filter(p -> !jarIndexes.containsKey(p)).forEach(retained::add);
+
+        Set<String> pending = readProjectReferences(projectPaths);
+        final Set<String> visited = ConcurrentHashMap.newKeySet();
+        visited.addAll(pending);
+
+        while (!pending.isEmpty()) {
+            final Set<String> next = ConcurrentHashMap.newKeySet();
+            pending.parallelStream().forEach(className -> {
+                // the class path is an unordered set, therefore all entries which contain the class are kept and followed
+                for (final Path classPath : index.getOrDefault(className, Collections.emptyList())) {
+                    if (!classPaths.contains(classPath))
+                        continue;
+
+                    retained.add(classPath);
+                    for (final String referenced : readReferences(classPath, className)) {
+                        if (visited.add(referenced))
+                            next.add(referenced);
+                    }
+                }
+            });
+            pending = next;
+        }
+
+        LogProvider.debug("Pruned dependency class path from " + classPaths.size() + " to " + retained.size() + " entries");
+        return new HashSet<>(retained);
+    }
+
+    @Override
+    public void close() {
+        // the mapped jars are released with the cache
+        jarIndexes.clear();
+        directoryClasses.clear();
+        index.clear();
+    }
+
+    private static Set<String> readProjectReferences(final Set<Path> projectPaths) {
+        final Set<String> references = ConcurrentHashMap.newKeySet();
+        for (final Path projectPath : projectPaths) {
+            if (!Files.isDirectory(projectPath))
+                continue;
+
+            try (Stream<Path> stream = Files.walk(projectPath)) {
+                stream.filter(p -> p.toString().endsWith(CLASS_SUFFIX)).collect(Collectors.toList()).parallelStream().forEach(p -> {
+                    try (InputStream in = Files.newInputStream(p)) {
+                        references.addAll(ClassReferences.read(in).getReferencedClasses());
+                    } catch (IOException e) {
+                        LogProvider.debug("Could not read " + p + ": " + e.getMessage());
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not scan " + projectPath, e);
+            }
+        }
+        return references;
+    }
+
+    private Set<String> readReferences(final Path classPath, final String className) {
+        try {
+            if (!directoryClasses.containsKey(classPath))
+                return cache.getReferences(classPath, className);
+
+            try (InputStream in = Files.newInputStream(classPath.resolve(className + CLASS_SUFFIX))) {
+                return ClassReferences.read(in).getReferencedClasses();
+            }
+        } catch (IOException e) {
+            LogProvider.debug("Could not read " + className + " in " + classPath + ": " + e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+}
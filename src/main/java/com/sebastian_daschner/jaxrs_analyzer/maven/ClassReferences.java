@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The class names referenced by a class file, read from its constant pool only.
+ * Covers referenced classes as well as types used in field, method, annotation and generic signatures.
+ * The direct super types are read from the class header. The internal names (e.g. {@code javax/ws/rs/Path}) are used.
+ *
+ * @author Sebastian Daschner
+ */
+class ClassReferences {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+
+    private final String className;
+    private final Set<String> referencedClasses;
+    private final Set<String> superTypes;
+
+    private ClassReferences(final String className, final Set<String> referencedClasses, final Set<String> superTypes) {
+        this.className = className;
+        this.referencedClasses = referencedClasses;
+        this.superTypes = superTypes;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    Set<String> getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    /**
+     * Returns the super class, if any, and the directly implemented interfaces.
+     */
+    Set<String> getSuperTypes() {
+        return superTypes;
+    }
+
+    boolean references(final String className) {
+        return referencedClasses.contains(className);
+    }
+
+    /**
+     * Reads the constant pool of the given class file stream. The stream is not closed.
+     */
+    static ClassReferences read(final InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a class file");
+        // minor and major version
+        in.readInt();
+
+        final int count = in.readUnsignedShort();
+        final String[] utf8 = new String[count];
+        // name indexes of class entries, by constant pool slot
+        final int[] classNames = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7:
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    in.readUnsignedShort();
+                    break;
+                case 15:
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    in.readInt();
+                    break;
+                case 5:
+                case 6:
+                    in.readLong();
+                    // long and double entries take two slots
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        // access flags
+        in.readUnsignedShort();
+        final int thisClass = in.readUnsignedShort();
+
+        final Set<String> superTypes = new HashSet<>();
+        final int superClass = in.readUnsignedShort();
+        // java/lang/Object has no super class
+        if (superClass > 0)
+            superTypes.add(utf8[classNames[superClass]]);
+        final int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++)
+            superTypes.add(utf8[classNames[in.readUnsignedShort()]]);
+
+        final Set<String> referenced = new HashSet<>();
+        for (int i = 1; i < count; i++) {
+            if (classNames[i] > 0) {
+                final String name = utf8[classNames[i]];
+                if (name.charAt(0) == '[')
+                    addDescriptorTypes(name, referenced);
+                else
+                    referenced.add(name);
+            } else if (utf8[i] != null && utf8[i].indexOf(';') > 0) {
+                addDescriptorTypes(utf8[i], referenced);
+            }
+        }
+
+        final String className = utf8[classNames[thisClass]];
+        referenced.remove(className);
+        return new ClassReferences(className, referenced, superTypes);
+    }
+
+    private static void addDescriptorTypes(final String descriptor, final Set<String> referenced) {
+        final Matcher matcher = DESCRIPTOR_TYPE.matcher(descriptor);
+        while (matcher.find())
+            referenced.add(matcher.group(1));
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of file content hashes, keyed by e.g. the analyzer version.
+ * Files are only re-hashed if their size or modification time changed since the last run.
+ * Files may be hashed concurrently.
+ * <p>
+ * The cache is stored in a compact binary format which is memory-mapped on load.
+ *
+ * @author Sebastian Daschner
+ */
+class ContentHashCache {
+
+    private static final int MAGIC = 0x4a484348;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private final Path location;
+    private final String key;
+    private final Map<String, Entry> cached = new HashMap<>();
+    private final Map<String, Entry> current = new ConcurrentSkipListMap<>();
+    private final AtomicInteger changed = new AtomicInteger();
+
+    private ContentHashCache(final Path location, final String key) {
+        this.location = location;
+        this.key = key;
+    }
+
+    /**
+     * Loads the cache from the given location.
+     * A missing, unreadable or outdated cache file, i.e. one with a different key, results in an empty cache.
+     */
+    static ContentHashCache load(final Path location, final String key) {
+        final ContentHashCache cache = new ContentHashCache(location, key);
+        if (!Files.exists(location))
+            return cache;
+
+        try (FileChannel channel = FileChannel.open(location, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !key.equals(readString(buffer))) {
+                LogProvider.debug("Discarding content hash cache " + location + ", format or key changed");
+                return cache;
+            }
+
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final String file = readString(buffer);
+                final long size = buffer.getLong();
+                final long lastModified = buffer.getLong();
+                final byte[] hash = new byte[HASH_LENGTH];
+                buffer.get(hash);
+                cache.cached.put(file, new Entry(size, lastModified, hash));
+            }
+        } catch (IOException | RuntimeException e) {
+            LogProvider.debug("Could not read content hash cache " + location + ": " + e.getMessage());
+            cache.cached.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 hash of the file's content, re-using the cached hash for unmodified files.
+     */
+    String hash(final Path file) {
+        try {
+            final String key = file.toAbsolutePath().toString();
+            final long size = Files.size(file);
+            final long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            Entry entry = cached.get(key);
+            if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+                entry = new Entry(size, lastModified, hashContent(file));
+                changed.incrementAndGet();
+            }
+            current.put(key, entry);
+            return InputFingerprint.toHex(entry.hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not hash " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of files which had to be hashed since they were not cached or modified.
+     */
+    int getChangedCount() {
+        return changed.get();
+    }
+
+    /**
+     * Writes all files hashed in this run to the cache location; entries of files which were not hashed are dropped.
+     * The file is not written if all entries are unchanged.
+     */
+    void save() throws IOException {
+        if (current.size() == cached.size() && current.entrySet().stream().allMatch(e -> e.getValue().equals(cached.get(e.getKey()))))
+            return;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(location)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, key);
+            out.writeInt(current.size());
+            for (final Map.Entry<String, Entry> e : current.entrySet()) {
+                writeString(out, e.getKey());
+                out.writeLong(e.getValue().size);
+                out.writeLong(e.getValue().lastModified);
+                out.write(e.getValue().hash);
+            }
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] hashContent(final Path file) throws IOException {
+        final MessageDigest digest = InputFingerprint.sha256();
+        final byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    private static class Entry {
+
+        private final long size;
+        private final long lastModified;
+        private final byte[] hash;
+
+        private Entry(final long size, final long lastModified, final byte[] hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final Entry entry = (Entry) o;
+            return size == entry.size && lastModified == entry.lastModified && Arrays.equals(hash, entry.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(size);
+            result = 31 * result + Long.hashCode(lastModified);
+            result = 31 * result + Arrays.hashCode(hash);
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * An analysis which is handed to the {@link AnalyzerDaemon}.
+ * The request is transferred as plain data, no objects are deserialized.
+ *
+ * @author Sebastian Daschner
+ */
+class DaemonRequest {
+
+    static final int PROTOCOL_VERSION = 2;
+
+    /**
+     * The maximum number of entries of a transferred collection, the request is read before it has been validated.
+     */
+    private static final int MAX_ENTRIES = 1 << 16;
+
+    String projectName;
+    String projectVersion;
+    Set<Path> classPaths = new HashSet<>();
+    Set<Path> projectPaths = new HashSet<>();
+    Set<Path> sourcePaths = new HashSet<>();
+    Set<String> ignoredResources = new HashSet<>();
+    List<BackendType> backendTypes = new ArrayList<>();
+    Map<String, String> backendConfig = new HashMap<>();
+    Path resourcesDirectory;
+    String encoding;
+
+    void write(final DataOutputStream out) throws IOException {
+        out.writeInt(PROTOCOL_VERSION);
+        writeNullable(out, projectName);
+        writeNullable(out, projectVersion);
+        writeStrings(out, classPaths.stream().map(Path::toString).collect(Collectors.toList()));
+        writeStrings(out, projectPaths.stream().map(Path::toString).collect(Collectors.toList()));
+        writeStrings(out, sourcePaths.stream().map(Path::toString).collect(Collectors.toList()));
+        writeStrings(out, ignoredResources);
+        writeStrings(out, backendTypes.stream().map(Enum::name).collect(Collectors.toList()));
+        out.writeInt(backendConfig.size());
+        for (final Map.Entry<String, String> entry : backendConfig.entrySet()) {
+            out.writeUTF(entry.getKey());
+            // unset options, e.g. an empty deployed domain, are null and have to stay null
+            writeNullable(out, entry.getValue());
+        }
+        out.writeUTF(resourcesDirectory.toString());
+        writeNullable(out, encoding);
+    }
+
+    static DaemonRequest read(final DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != PROTOCOL_VERSION)
+            throw new IOException("Unsupported protocol version " + version);
+
+        final DaemonRequest request = new DaemonRequest();
+        request.projectName = readNullable(in);
+        request.projectVersion = readNullable(in);
+        readStrings(in).stream().map(Paths::get).forEach(request.classPaths::add);
+        readStrings(in).stream().map(Paths::get).forEach(request.projectPaths::add);
+        readStrings(in).stream().map(Paths::get).forEach(request.sourcePaths::add);
+        request.ignoredResources.addAll(readStrings(in));
+        for (final String backendType : readStrings(in))
+            request.backendTypes.add(readBackendType(backendType));
+        final int configSize = readSize(in);
+        for (int i = 0; i < configSize; i++)
+            request.backendConfig.put(in.readUTF(), readNullable(in));
+        request.resourcesDirectory = Paths.get(in.readUTF());
+        request.encoding = readNullable(in);
+        return request;
+    }
+
+    private static BackendType readBackendType(final String name) throws IOException {
+        try {
+            return BackendType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown backend type " + name, e);
+        }
+    }
+
+    private static int readSize(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0 || size > MAX_ENTRIES)
+            throw new IOException("Invalid number of entries " + size);
+        return size;
+    }
+
+    private static void writeNullable(final DataOutputStream out, final String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null)
+            out.writeUTF(string);
+    }
+
+    private static String readNullable(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(final DataOutputStream out, final Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (final String string : strings)
+            out.writeUTF(string);
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int size = readSize(in);
+        final List<String> strings = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            strings.add(in.readUTF());
+        return strings;
+    }
+
+}
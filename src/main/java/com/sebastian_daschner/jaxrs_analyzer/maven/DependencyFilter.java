@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import org.apache.maven.artifact.Artifact;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Filters dependency artifacts by include and exclude patterns of the form {@code groupId[:artifactId[:scope]]}.
+ * Each segment may contain {@code *} wildcards, omitted segments match everything.
+ * An artifact is accepted if it matches any include pattern, or if there are none, and doesn't match any exclude pattern.
+ * Only the artifact coordinates are evaluated, the artifact files are not accessed.
+ *
+ * @author Sebastian Daschner
+ */
+class DependencyFilter implements Predicate<Artifact> {
+
+    private final List<ArtifactPattern> includes;
+    private final List<ArtifactPattern> excludes;
+
+    DependencyFilter(final String[] includes, final String[] excludes) {
+        this.includes = parse(includes);
+        this.excludes = parse(excludes);
+    }
+
+    @Override
+    public boolean test(final Artifact artifact) {
+        return (includes.isEmpty() || includes.stream().anyMatch(p -> p.matches(artifact)))
+                && excludes.stream().noneMatch(p -> p.matches(artifact));
+    }
+
+    private static List<ArtifactPattern> parse(final String[] patterns) {
+        if (patterns == null)
+            return Collections.emptyList();
+        return Stream.of(patterns).map(String::trim).filter(p -> !p.isEmpty()).map(ArtifactPattern::new).collect(Collectors.toList());
+    }
+
+    private static class ArtifactPattern {
+
+        private final Pattern groupId;
+        private final Pattern artifactId;
+        private final Pattern scope;
+
+        private ArtifactPattern(final String pattern) {
+            final String[] segments = pattern.split(":", -1);
+            if (segments.length > 3)
+                throw new IllegalArgumentException("Invalid dependency pattern " + pattern + ", expected groupId[:artifactId[:scope]]");
+
+            groupId = compile(segments[0]);
+            artifactId = compile(segments.length > 1 ? segments[1] : "*");
+            scope = compile(segments.length > 2 ? segments[2] : "*");
+        }
+
+        private boolean matches(final Artifact artifact) {
+            return groupId.matcher(artifact.getGroupId()).matches() && artifactId.matcher(artifact.getArtifactId()).matches()
+                    && scope.matcher(artifact.getScope() == null ? Artifact.SCOPE_COMPILE : artifact.getScope()).matches();
+        }
+
+        private static Pattern compile(final String glob) {
+            return Pattern.compile(Stream.of(glob.split("\\*", -1)).map(Pattern::quote).collect(Collectors.joining(".*")));
+        }
+
+    }
+
+}
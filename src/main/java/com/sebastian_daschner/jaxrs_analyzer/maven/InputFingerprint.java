@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fingerprint of all inputs of an analysis run.
+ * Files are identified either by their path, size and modification time or by their content hash;
+ * the order in which inputs are added is not relevant.
+ *
+ * @author Sebastian Daschner
+ */
+class InputFingerprint {
+
+    private final Map<String, String> entries = new TreeMap<>();
+
+    InputFingerprint add(final String key, final String value) {
+        entries.put(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds the given file or all regular files below the given directory, identified by size and modification time.
+     * Non existing locations are recorded as missing.
+     */
+    InputFingerprint addFiles(final String key, final Path location) {
+        for (final Path file : listFiles(key, location)) {
+            try {
+                entries.put(key + ':' + file, Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not fingerprint " + file, e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given file or all regular files below the given directory, identified by their content hash.
+     * Non existing locations are recorded as missing.
+     */
+    InputFingerprint addContents(final String key, final Path location, final ContentHashCache cache) {
+        // the files are hashed in parallel
+        final Map<Path, String> hashes = listFiles(key, location).parallelStream().collect(Collectors.toMap(f -> f, cache::hash));
+        hashes.forEach((file, hash) -> entries.put(key + ':' + file, hash));
+        return this;
+    }
+
+    private List<Path> listFiles(final String key, final Path location) {
+        if (!Files.exists(location)) {
+            entries.put(key + ':' + location, "missing");
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> stream = Files.walk(location)) {
+            return stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not fingerprint " + location, e);
+        }
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 hash of all added entries.
+     */
+    String compute() {
+        final MessageDigest digest = sha256();
+        entries.forEach((k, v) -> {
+            digest.update(k.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '=');
+            digest.update(v.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        });
+        return toHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+}
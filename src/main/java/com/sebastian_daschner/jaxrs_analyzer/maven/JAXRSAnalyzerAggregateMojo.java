@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singleton;
+
+/**
+ * Maven goal which analyzes the JAX-RS resources of all modules of the reactor in a single execution.
+ * The bytecode analyses of the modules run one after another, as the analyzer keeps static state; only the preparation
+ * of the class and source paths and the rendering of the modules run concurrently.
+ * Each module's resources are generated in the module's build directory, a merged Swagger document of all modules
+ * is generated in the build directory of the executing project.
+ *
+ * @author Sebastian Daschner
+ * @goal analyze-jaxrs-aggregate
+ * @aggregator
+ * @requiresDependencyResolution compile
+ */
+public class JAXRSAnalyzerAggregateMojo extends AbstractJAXRSAnalyzerMojo {
+
+    /**
+     * @parameter property="reactorProjects"
+     * @required
+     * @readonly
+     */
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * @parameter property="project.build.directory"
+     * @required
+     * @readonly
+     */
+    private File buildDirectory;
+
+    /**
+     * The maximum number of modules which are prepared and rendered concurrently. The bytecode analyses of the modules
+     * are always performed one after another.
+     *
+     * @parameter default-value="4" property="jaxrs-analyzer.threads"
+     */
+    private Integer threads;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        injectMavenLoggers();
+
+        final List<MavenProject> modules = reactorProjects.stream()
+                .filter(p -> Files.isDirectory(Paths.get(p.getBuild().getOutputDirectory())))
+                .collect(Collectors.toList());
+
+        if (modules.isEmpty()) {
+            LogProvider.info("skipping aggregation, no module contains compiled classes");
+            return;
+        }
+
+        final List<BackendType> backendTypes = getBackendTypes();
+        final Map<String, String> backendConfig = getBackendConfig();
+        final Set<Path> internalDependencies = getInternalDependencies();
+        final Set<String> ignoredResources = Stream.of(ignoredRootResources).collect(Collectors.toSet());
+
+        LogProvider.info("analyzing JAX-RS resources of " + modules.size() + " modules");
+
+        final Map<MavenProject, Resources> results = analyzeModules(modules, backendTypes, backendConfig, internalDependencies, ignoredResources);
+
+        final Resources merged = merge(results.values());
+        if (merged.isEmpty()) {
+            LogProvider.info("Empty JAX-RS analysis result, omitting merged output");
+            return;
+        }
+
+        final Path resourcesDirectory = createResourcesDirectory(buildDirectory.toPath());
+        new BackendRenderer(backendConfig, resourcesDirectory)
+                .render(new Project(project.getName(), project.getVersion(), merged), singleton(BackendType.SWAGGER));
+    }
+
+    private Map<MavenProject, Resources> analyzeModules(final List<MavenProject> modules, final List<BackendType> backendTypes,
+                                                        final Map<String, String> backendConfig, final Set<Path> internalDependencies,
+                                                        final Set<String> ignoredResources) throws MojoExecutionException {
+        final Map<MavenProject, Set<Path>> moduleDependencies = new HashMap<>();
+        for (final MavenProject module : modules)
+            moduleDependencies.put(module, getDependencies(module));
+
+        final Set<Path> allDependencies = moduleDependencies.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+        LogProvider.debug(allDependencies.size() + " distinct dependency class paths in " + modules.size() + " modules");
+
+        // jars which are shared between modules are indexed only once
+        final ClassPathPruner pruner = pruneClassPath ? runParallel(() -> new ClassPathPruner(allDependencies, getClassPathCache())) : null;
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, modules.size())));
+        try {
+            final Map<MavenProject, Future<Resources>> futures = new LinkedHashMap<>();
+            for (final MavenProject module : modules) {
+                futures.put(module, executor.submit(() ->
+                        analyzeModule(module, moduleDependencies.get(module), internalDependencies, pruner, ignoredResources, backendTypes, backendConfig)));
+            }
+
+            final Map<MavenProject, Resources> results = new LinkedHashMap<>();
+            for (final Map.Entry<MavenProject, Future<Resources>> entry : futures.entrySet())
+                results.put(entry.getKey(), entry.getValue().get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Analysis was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Could not analyze module: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // running module tasks may still prune their class paths
+            awaitTermination(executor);
+            if (pruner != null)
+                pruner.close();
+        }
+    }
+
+    private Resources analyzeModule(final MavenProject module, final Set<Path> dependencies, final Set<Path> internalDependencies,
+                                    final ClassPathPruner pruner, final Set<String> ignoredResources, final List<BackendType> backendTypes,
+                                    final Map<String, String> backendConfig) throws MojoExecutionException {
+        final Set<Path> projectPaths = singleton(Paths.get(module.getBuild().getOutputDirectory()));
+
+        final Set<Path> classPaths;
+        if (pruner != null) {
+            classPaths = pruneDependencies(pruner, dependencies, internalDependencies, projectPaths);
+        } else {
+            classPaths = new HashSet<>(dependencies);
+            classPaths.addAll(internalDependencies);
+        }
+
+        final Path buildDirectory = Paths.get(module.getBuild().getDirectory());
+        final Set<Path> sourcePaths = getAnalysisSourcePaths(projectPaths, Paths.get(module.getBuild().getSourceDirectory()), buildDirectory);
+        final Set<Path> analysisProjectPaths = getAnalysisProjectPaths(projectPaths, classPaths, buildDirectory);
+
+        // the modules may declare different source encodings
+        final String moduleEncoding = module.getProperties().getProperty(SOURCE_ENCODING_PROPERTY, encoding);
+
+        final long start = System.currentTimeMillis();
+        // the analyses of the modules never overlap, the analyzer isn't thread-safe
+        final Resources resources = analyze(classPaths, analysisProjectPaths, sourcePaths, ignoredResources, moduleEncoding);
+        LogProvider.debug("Analysis of " + module.getArtifactId() + " took " + (System.currentTimeMillis() - start) + " ms");
+
+        if (resources.isEmpty()) {
+            LogProvider.info("Empty JAX-RS analysis result for " + module.getArtifactId() + ", omitting output");
+            return resources;
+        }
+
+        final Path resourcesDirectory = createResourcesDirectory(buildDirectory);
+        new BackendRenderer(backendConfig, resourcesDirectory).render(new Project(module.getName(), module.getVersion(), resources), backendTypes);
+        return resources;
+    }
+
+    private static void awaitTermination(final ExecutorService executor) {
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private Path createResourcesDirectory(final Path buildDirectory) throws MojoExecutionException {
+        final File resourcesDirectory = buildDirectory.resolve(resourcesDir).toFile();
+        if (!resourcesDirectory.exists() && !resourcesDirectory.mkdirs())
+            throw new MojoExecutionException("Could not create directory " + resourcesDirectory);
+        return resourcesDirectory.toPath();
+    }
+
+    /**
+     * Merges the resources of several modules. The base path of each module becomes part of its resource paths.
+     */
+    static Resources merge(final Collection<Resources> results) {
+        final Resources merged = new Resources();
+        merged.setBasePath("");
+        merged.setTypeRepresentations(new HashMap<>());
+
+        for (final Resources resources : results) {
+            final String basePath = trimSlashes(resources.getBasePath());
+            for (final String resource : resources.getResources()) {
+                final String path = trimSlashes(resource);
+                merged.addMethods(basePath.isEmpty() ? path : path.isEmpty() ? basePath : basePath + '/' + path, resources.getMethods(resource));
+            }
+            if (resources.getTypeRepresentations() != null)
+                merged.getTypeRepresentations().putAll(resources.getTypeRepresentations());
+        }
+        return merged;
+    }
+
+    private static String trimSlashes(final String path) {
+        if (path == null)
+            return "";
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/')
+            start++;
+        while (end > start && path.charAt(end - 1) == '/')
+            end--;
+        return path.substring(start, end);
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Collections.singleton;
+
+/**
+ * Maven goal which compares the JAX-RS resources of the project with a previously published Swagger document and
+ * reports added, removed and changed endpoints.
+ * The endpoints which were analyzed by a preceding analyze-jaxrs execution of the same build are re-used, also if that
+ * execution was skipped or ran in the analyzer daemon.
+ *
+ * @author Sebastian Daschner
+ * @goal diff
+ * @phase verify
+ * @requiresDependencyResolution compile
+ */
+public class JAXRSAnalyzerDiffMojo extends AbstractJAXRSAnalyzerMojo {
+
+    /**
+     * @parameter property="project.build.outputDirectory"
+     * @required
+     * @readonly
+     */
+    private File outputDirectory;
+
+    /**
+     * @parameter property="project.build.sourceDirectory"
+     * @required
+     * @readonly
+     */
+    private File sourceDirectory;
+
+    /**
+     * @parameter property="project.build.directory"
+     * @required
+     * @readonly
+     */
+    private File buildDirectory;
+
+    /**
+     * The Swagger document of the previously published API.
+     *
+     * @parameter property="jaxrs-analyzer.baseline"
+     * @required
+     */
+    private File baseline;
+
+    /**
+     * Specifies if the build should fail if endpoints were removed or changed compared to the baseline.
+     *
+     * @parameter default-value="false" property="jaxrs-analyzer.failOnIncompatibleChanges"
+     */
+    private Boolean failOnIncompatibleChanges;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        injectMavenLoggers();
+
+        if (!baseline.isFile())
+            throw new MojoExecutionException("Baseline Swagger document " + baseline + " does not exist");
+
+        final ApiDiff.Endpoints endpoints = getEndpoints();
+        if (endpoints == null) {
+            LogProvider.info("skipping non existing directory " + outputDirectory);
+            return;
+        }
+
+        final ApiDiff diff;
+        try {
+            diff = ApiDiff.compare(baseline.toPath(), endpoints);
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        report(diff);
+
+        if (diff.isIncompatible() && failOnIncompatibleChanges)
+            throw new MojoFailureException("The JAX-RS resources contain incompatible changes compared to " + baseline);
+    }
+
+    private ApiDiff.Endpoints getEndpoints() throws MojoExecutionException {
+        final ApiDiff.Endpoints analyzed = (ApiDiff.Endpoints) project.getContextValue(ENDPOINTS_CONTEXT_KEY);
+        if (analyzed != null) {
+            LogProvider.debug("Using the endpoints of the preceding analysis");
+            return analyzed;
+        }
+
+        if (!outputDirectory.isDirectory())
+            return null;
+
+        handleSourceEncoding();
+        final Set<Path> projectPaths = singleton(outputDirectory.toPath());
+        final Set<Path> classPaths = getAnalysisClassPaths(projectPaths);
+        final Set<Path> sourcePaths = getAnalysisSourcePaths(projectPaths, sourceDirectory.toPath(), buildDirectory.toPath());
+        final Set<Path> analysisProjectPaths = getAnalysisProjectPaths(projectPaths, classPaths, buildDirectory.toPath());
+        final Set<String> ignoredResources = Stream.of(ignoredRootResources).collect(Collectors.toSet());
+
+        final ApiDiff.Endpoints endpoints = ApiDiff.describe(analyze(classPaths, analysisProjectPaths, sourcePaths, ignoredResources));
+        project.setContextValue(ENDPOINTS_CONTEXT_KEY, endpoints);
+        return endpoints;
+    }
+
+    private void report(final ApiDiff diff) {
+        if (diff.getAdded().isEmpty() && diff.getRemoved().isEmpty() && diff.getChanged().isEmpty() && !diff.isBasePathChanged()) {
+            LogProvider.info("No API changes compared to " + baseline);
+            return;
+        }
+
+        if (diff.isBasePathChanged())
+            getLog().warn("Changed base path: /" + diff.getBaselineBasePath() + " -> /" + diff.getCurrentBasePath());
+        diff.getAdded().forEach(e -> LogProvider.info("Added endpoint: " + e));
+        diff.getRemoved().forEach(e -> getLog().warn("Removed endpoint: " + e));
+        diff.getChanged().forEach((e, change) -> getLog().warn("Changed endpoint: " + e + ", " + change));
+    }
+
+}
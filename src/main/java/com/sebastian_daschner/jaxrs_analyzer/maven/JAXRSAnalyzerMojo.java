@@ -16,24 +16,15 @@
 
 package com.sebastian_daschner.jaxrs_analyzer.maven;
 
-import com.sebastian_daschner.jaxrs_analyzer.JAXRSAnalyzer;
 import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
-import com.sebastian_daschner.jaxrs_analyzer.backend.Backend;
-import com.sebastian_daschner.jaxrs_analyzer.backend.StringBackend;
-import com.sebastian_daschner.jaxrs_analyzer.backend.swagger.SwaggerOptions;
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.plugin.AbstractMojo;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
 import org.apache.maven.plugin.MojoExecutionException;
-import org.apache.maven.project.MavenProject;
-import org.eclipse.aether.RepositorySystem;
-import org.eclipse.aether.RepositorySystemSession;
-import org.eclipse.aether.artifact.DefaultArtifact;
-import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactRequest;
-import org.eclipse.aether.resolution.ArtifactResolutionException;
-import org.eclipse.aether.resolution.ArtifactResult;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -51,49 +42,7 @@ import static java.util.stream.Collectors.joining;
  * @phase process-test-classes
  * @requiresDependencyResolution compile
  */
-public class JAXRSAnalyzerMojo extends AbstractMojo {
-
-    /**
-     * The chosen backend format. Defaults to plaintext.
-     *
-     * @parameter default-value="plaintext" property="jaxrs-analyzer.backend"
-     */
-    private String backend;
-
-    /**
-     * The domain where the project will be deployed.
-     *
-     * @parameter default-value="" property="jaxrs-analyzer.deployedDomain"
-     */
-    private String deployedDomain;
-
-    /**
-     * The Swagger schemes.
-     *
-     * @parameter default-value="http" property="jaxrs-analyzer.swaggerSchemes"
-     */
-    private String[] swaggerSchemes;
-
-    /**
-     * Specifies if Swagger tags should be generated.
-     *
-     * @parameter default-value="false" property="jaxrs-analyzer.renderSwaggerTags"
-     */
-    private Boolean renderSwaggerTags;
-
-    /**
-     * The number at which path position the Swagger tags should be extracted.
-     *
-     * @parameter default-value="0" property="jaxrs-analyzer.swaggerTagsPathOffset"
-     */
-    private Integer swaggerTagsPathOffset;
-
-    /**
-     * For plaintext and asciidoc backends, should they try to prettify inline JSON representation of requests/responses.
-     *
-     * @parameter default-value="true" property="jaxrs-analyzer.inlinePrettify"
-     */
-    private Boolean inlinePrettify;
+public class JAXRSAnalyzerMojo extends AbstractJAXRSAnalyzerMojo {
 
     /**
      * @parameter property="project.build.outputDirectory"
@@ -117,59 +66,46 @@ public class JAXRSAnalyzerMojo extends AbstractMojo {
     private File buildDirectory;
 
     /**
-     * @parameter property="project.build.sourceEncoding"
-     */
-    private String encoding;
-
-    /**
-     * @parameter property="project"
-     * @required
-     * @readonly
-     */
-    private MavenProject project;
-
-    /**
-     * The entry point to Aether.
+     * Specifies if the analysis should be skipped if none of the inputs have changed since the last run.
      *
-     * @component
+     * @parameter default-value="true" property="jaxrs-analyzer.incremental"
      */
-    private RepositorySystem repoSystem;
+    private Boolean incremental;
 
     /**
-     * The current repository/network configuration of Maven.
+     * Specifies if the timings and counts of the analysis phases should be written to a JSON file in the resources directory.
      *
-     * @parameter property="repositorySystemSession"
-     * @required
-     * @readonly
+     * @parameter default-value="false" property="jaxrs-analyzer.writeMetrics"
      */
-    private RepositorySystemSession repoSession;
+    private Boolean writeMetrics;
 
     /**
-     * The project's remote repositories to use for the resolution of plugins and their dependencies.
+     * Specifies if the analysis should be handed to a long-lived local analyzer process, which is started on demand.
+     * The warm analyzer process speeds up repeated builds.
      *
-     * @parameter property="project.remotePluginRepositories"
-     * @required
-     * @readonly
+     * @parameter default-value="false" property="jaxrs-analyzer.daemon"
      */
-    private List<RemoteRepository> remoteRepos;
-
+    private Boolean daemon;
 
     /**
-     * Path, relative to outputDir, to generate resources
+     * The idle time in minutes after which the analyzer daemon terminates.
      *
-     * @parameter default-value="jaxrs-analyzer" property="jaxrs-analyzer.resourcesDir"
+     * @parameter default-value="180" property="jaxrs-analyzer.daemonIdleTimeout"
      */
-    private String resourcesDir;
-
+    private Integer daemonIdleTimeout;
 
     /**
-     * JAX-RS root resource classes that will be ignored by the analyzer.
-     * The fully-qualified class names of classes to be ignored as JAX-RS root resources, separated by comma.
-     * Please note that the classes still might be considered as sub-resources, included in other root resources.
+     * The heap memory in megabytes which the analysis aims to use. Sizes the caches, renders the backends one after
+     * another and writes the Swagger document resource by resource. Defaults to no limit.
      *
-     * @parameter default-value="" property="jaxrs-analyzer.ignoredRootResources"
+     * @parameter default-value="0" property="jaxrs-analyzer.memoryBudget"
      */
-    private String[] ignoredRootResources;
+    private Integer memoryBudget;
+
+    private static final String METRICS_FILE = "analysis-metrics.json";
+    private static final String FINGERPRINT_FILE = ".fingerprint";
+    private static final String CLASS_HASHES_FILE = ".class-hashes";
+    private static final String SOURCE_HASHES_FILE = ".source-hashes";
 
     @Override
     public void execute() throws MojoExecutionException {
@@ -181,31 +117,45 @@ public class JAXRSAnalyzerMojo extends AbstractMojo {
             return;
         }
 
-        final JAXRSAnalyzer.Analysis analysis = new JAXRSAnalyzer.Analysis();
-        analysis.setProjectName(project.getName());
-        analysis.setProjectVersion(project.getVersion());
+        try (MemoryBudget budget = memoryBudget > 0 ? new MemoryBudget(memoryBudget) : null) {
+            execute(budget);
+        }
+    }
+
+    private void execute(final MemoryBudget budget) throws MojoExecutionException {
+        final List<BackendType> backendTypes = getBackendTypes();
+        final Map<String, String> backendConfig = getBackendConfig();
+        if (budget != null) {
+            // intermediate Swagger documents are kept on disk instead of the heap
+            backendConfig.put(BackendRenderer.STREAM_SWAGGER, "true");
+            backendConfig.put(BackendRenderer.RENDER_SEQUENTIALLY, "true");
+        }
 
-        final Backend backend = configureBackend(getBackendType());
-        analysis.setBackend(backend);
+        LogProvider.info("analyzing JAX-RS resources, using " + backendTypes.stream()
+                .map(t -> BackendRenderer.configureBackend(t, backendConfig).getName()).collect(joining(", ")) +
+                (backendTypes.size() > 1 ? " backends" : " backend"));
 
-        LogProvider.info("analyzing JAX-RS resources, using " + backend.getName() + " backend");
+        final AnalysisMetrics metrics = new AnalysisMetrics();
 
         // add dependencies to analysis class path
-        final Set<Path> classPaths = getDependencies();
-        classPaths.forEach(analysis::addClassPath);
+        long start = System.nanoTime();
+        final Set<Path> dependencies = getDependencies(project);
+        final Set<Path> internalDependencies = getInternalDependencies();
+        metrics.record(AnalysisMetrics.DEPENDENCY_RESOLUTION, start);
+        final Set<Path> classPaths = new HashSet<>(dependencies);
+        classPaths.addAll(internalDependencies);
         LogProvider.debug("Dependency class paths are: " + classPaths);
 
         final Set<Path> projectPaths = singleton(outputDirectory.toPath());
-        projectPaths.forEach(analysis::addProjectClassPath);
         LogProvider.debug("Project paths are: " + projectPaths);
 
         final Set<Path> sourcePaths = singleton(sourceDirectory.toPath());
-        sourcePaths.forEach(analysis::addProjectSourcePath);
         LogProvider.debug("Source paths are: " + sourcePaths);
 
+        final Set<String> ignoredResources = new HashSet<>();
         Stream.of(ignoredRootResources).forEach(ignored -> {
             LogProvider.info(String.format("Class %s will be ignored as root resource.", ignored));
-            analysis.addIgnoredResource(ignored);
+            ignoredResources.add(ignored);
         });
 
         handleSourceEncoding();
@@ -215,96 +165,215 @@ public class JAXRSAnalyzerMojo extends AbstractMojo {
         if (!resourcesDirectory.exists() && !resourcesDirectory.mkdirs())
             throw new MojoExecutionException("Could not create directory " + resourcesDirectory);
 
-        final Path fileLocation = resourcesDirectory.toPath().resolve(getBackendType().getFileLocation());
-        analysis.setOutputLocation(fileLocation);
-
-        LogProvider.info("Generating resources at " + fileLocation.toAbsolutePath());
+        final BackendRenderer renderer = new BackendRenderer(backendConfig, resourcesDirectory.toPath(), metrics);
+        final Path metricsLocation = resourcesDirectory.toPath().resolve(METRICS_FILE);
+
+        start = System.nanoTime();
+        final Path fingerprintLocation = resourcesDirectory.toPath().resolve(FINGERPRINT_FILE);
+        final Path endpointsLocation = resourcesDirectory.toPath().resolve(ApiDiff.ENDPOINTS_FILE);
+        final ContentHashCache classHashes = ContentHashCache.load(resourcesDirectory.toPath().resolve(CLASS_HASHES_FILE), getAnalyzerVersion());
+        // the parsed JavaDoc depends on the source encoding
+        final ContentHashCache sourceHashes = ContentHashCache.load(resourcesDirectory.toPath().resolve(SOURCE_HASHES_FILE), getAnalyzerVersion() + ':' + encoding);
+        final String fingerprint = incremental
+                ? runParallel(() -> calculateFingerprint(backendTypes, backendConfig, classPaths, projectPaths, sourcePaths, classHashes, sourceHashes))
+                : null;
+        metrics.record(AnalysisMetrics.FINGERPRINT, start);
+        if (incremental && isUpToDate(fingerprintLocation, fingerprint, backendTypes.stream().map(renderer::getFileLocation).collect(Collectors.toList()))) {
+            LogProvider.info("Skipping analysis, no class files, source files, dependencies or configuration changed since the last run");
+            LogProvider.debug("Input fingerprint " + fingerprint + " matches " + fingerprintLocation);
+            metrics.setSkipped(true);
+            publishEndpoints(ApiDiff.Endpoints.read(endpointsLocation));
+            reportMemory(budget, metrics);
+            reportMetrics(metrics, metricsLocation);
+            return;
+        }
 
-        // start analysis
-        final long start = System.currentTimeMillis();
+        start = System.nanoTime();
+        final Set<Path> analysisClassPaths;
+        if (pruneClassPath) {
+            // the references read by a budgeted execution are released with its cache view, the heap is left to the analysis
+            final ClassPathCache cache = budget != null ? getClassPathCache().withReferenceCapacity(budget.getReferenceCapacity()) : getClassPathCache();
+            analysisClassPaths = runParallel(() -> {
+                try (ClassPathPruner pruner = new ClassPathPruner(dependencies, cache)) {
+                    return pruneDependencies(pruner, dependencies, internalDependencies, projectPaths);
+                }
+            });
+        } else {
+            analysisClassPaths = classPaths;
+        }
+        metrics.record(AnalysisMetrics.CLASS_PATH_INDEXING, start);
+        metrics.count(AnalysisMetrics.JARS_OPENED, analysisClassPaths.stream().filter(Files::isRegularFile).count());
+        metrics.count(AnalysisMetrics.CLASSES_SCANNED, countClassFiles(projectPaths));
+
+        start = System.nanoTime();
+        final Set<Path> analysisSourcePaths = getAnalysisSourcePaths(projectPaths, sourceDirectory.toPath(), buildDirectory.toPath());
+        metrics.record(AnalysisMetrics.SOURCE_STAGING, start);
+
+        start = System.nanoTime();
+        final Set<Path> analysisProjectPaths = getAnalysisProjectPaths(projectPaths, analysisClassPaths, buildDirectory.toPath());
+        metrics.record(AnalysisMetrics.CLASS_STAGING, start);
+
+        if (daemon) {
+            start = System.nanoTime();
+            final int resources = analyzeInDaemon(backendTypes, backendConfig, analysisClassPaths, analysisProjectPaths, analysisSourcePaths, ignoredResources,
+                    resourcesDirectory.toPath());
+            // the daemon analyzes and renders in one step and writes the endpoints
+            metrics.record(AnalysisMetrics.ANALYSIS, start);
+            metrics.count(AnalysisMetrics.RESOURCES_FOUND, resources);
+            publishEndpoints(ApiDiff.Endpoints.read(endpointsLocation));
+        } else {
+            // start analysis
+            start = System.nanoTime();
+            final Resources resources = analyze(analysisClassPaths, analysisProjectPaths, analysisSourcePaths, ignoredResources);
+            final ApiDiff.Endpoints endpoints = ApiDiff.describe(resources);
+            writeEndpoints(endpoints, endpointsLocation);
+            publishEndpoints(endpoints);
+            metrics.record(AnalysisMetrics.ANALYSIS, start);
+            metrics.count(AnalysisMetrics.RESOURCES_FOUND, resources.getResources().size());
+
+            if (resources.isEmpty()) {
+                LogProvider.info("Empty JAX-RS analysis result, omitting output");
+            } else {
+                // all backends are rendered from the same analysis result
+                renderer.render(new Project(project.getName(), project.getVersion(), resources), backendTypes);
+            }
+        }
 
-        new JAXRSAnalyzer(analysis).analyze();
+        if (incremental) {
+            writeFingerprint(fingerprintLocation, fingerprint);
+            saveHashes(classHashes);
+            saveHashes(sourceHashes);
+        }
 
-        LogProvider.debug("Analysis took " + (System.currentTimeMillis() - start) + " ms");
+        reportMemory(budget, metrics);
+        reportMetrics(metrics, metricsLocation);
     }
 
-    private void handleSourceEncoding() {
-        if (encoding != null && System.getProperty("project.build.sourceEncoding") == null)
-            System.setProperty("project.build.sourceEncoding", encoding);
+    /**
+     * Shares the endpoints with later goals of the build, e.g. the diff goal. Only the small endpoint signatures are kept,
+     * not the analyzed resources.
+     */
+    private void publishEndpoints(final ApiDiff.Endpoints endpoints) {
+        if (endpoints != null)
+            project.setContextValue(ENDPOINTS_CONTEXT_KEY, endpoints);
     }
 
-    private BackendType getBackendType() {
-        switch (backend.toLowerCase()) {
-            case "plaintext":
-                return BackendType.PLAINTEXT;
-            case "asciidoc":
-                return BackendType.ASCIIDOC;
-            case "markdown":
-                return BackendType.MARKDOWN;
-            case "swagger":
-                return BackendType.SWAGGER;
-            default:
-                throw new IllegalArgumentException("Backend " + backend + " not valid! Valid values are: " +
-                        Stream.of(BackendType.values()).map(Enum::name).map(String::toLowerCase).collect(joining(", ")));
+    private static void writeEndpoints(final ApiDiff.Endpoints endpoints, final Path endpointsLocation) {
+        try {
+            endpoints.write(endpointsLocation);
+        } catch (IOException e) {
+            LogProvider.debug("Could not write endpoints " + endpointsLocation + ": " + e.getMessage());
         }
     }
 
-    private Backend configureBackend(final BackendType backendType) throws IllegalArgumentException {
-        final Map<String, String> config = new HashMap<>();
-        config.put(SwaggerOptions.SWAGGER_SCHEMES, Stream.of(swaggerSchemes).collect(joining(",")));
-        config.put(SwaggerOptions.DOMAIN, deployedDomain);
-        config.put(SwaggerOptions.RENDER_SWAGGER_TAGS, renderSwaggerTags.toString());
-        config.put(SwaggerOptions.SWAGGER_TAGS_PATH_OFFSET, swaggerTagsPathOffset.toString());
-        config.put(StringBackend.INLINE_PRETTIFY, inlinePrettify.toString());
-
-        final Backend backend = JAXRSAnalyzer.constructBackend(backendType.name());
-        backend.configure(config);
+    private void reportMemory(final MemoryBudget budget, final AnalysisMetrics metrics) {
+        if (budget == null)
+            return;
 
-        return backend;
+        final long peak = budget.getPeakMegabytes();
+        metrics.count(AnalysisMetrics.PEAK_HEAP_MEGABYTES, peak);
+        LogProvider.info("Peak heap usage was " + peak + " MB, the memory budget is " + budget.getMegabytes() + " MB");
+        if (budget.isExceeded())
+            getLog().warn("The memory budget of " + budget.getMegabytes() + " MB was exceeded");
     }
 
-    private void injectMavenLoggers() {
-        LogProvider.injectInfoLogger(getLog()::info);
-        LogProvider.injectDebugLogger(getLog()::debug);
-        LogProvider.injectErrorLogger(getLog()::error);
+    private int analyzeInDaemon(final List<BackendType> backendTypes, final Map<String, String> backendConfig, final Set<Path> classPaths,
+                                final Set<Path> projectPaths, final Set<Path> sourcePaths, final Set<String> ignoredResources,
+                                final Path resourcesDirectory) throws MojoExecutionException {
+        final DaemonRequest request = new DaemonRequest();
+        request.projectName = project.getName();
+        request.projectVersion = project.getVersion();
+        request.classPaths.addAll(classPaths);
+        request.projectPaths.addAll(projectPaths);
+        request.sourcePaths.addAll(sourcePaths);
+        request.ignoredResources.addAll(ignoredResources);
+        request.backendTypes.addAll(backendTypes);
+        request.backendConfig.putAll(backendConfig);
+        request.resourcesDirectory = resourcesDirectory.toAbsolutePath();
+        request.encoding = encoding;
+
+        // one daemon per analyzer version
+        final Path daemonFile = getUserDirectory().resolve("daemon-" + getAnalyzerVersion());
+        LogProvider.info("Handing analysis to analyzer daemon");
+        try {
+            return new AnalyzerDaemonClient(daemonFile, daemonIdleTimeout).analyze(request);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not analyze in daemon: " + e.getMessage(), e);
+        }
     }
 
-    private Set<Path> getDependencies() throws MojoExecutionException {
-        project.setArtifactFilter(a -> true);
+    private void reportMetrics(final AnalysisMetrics metrics, final Path metricsLocation) throws MojoExecutionException {
+        LogProvider.debug("Analysis metrics: " + metrics.format());
+        if (!writeMetrics)
+            return;
 
-        Set<Artifact> artifacts = project.getArtifacts();
-        if (artifacts.isEmpty()) {
-            artifacts = project.getDependencyArtifacts();
+        try {
+            metrics.write(metricsLocation);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write metrics " + metricsLocation, e);
         }
+    }
 
-        final Set<Path> dependencies = artifacts.stream().filter(a -> !a.getScope().equals(Artifact.SCOPE_TEST)).map(Artifact::getFile)
-                .filter(Objects::nonNull).map(File::toPath).collect(Collectors.toSet());
-
-        final String analyzerVersion = project.getPluginArtifactMap().get("com.sebastian-daschner:jaxrs-analyzer-maven-plugin").getVersion();
-
-        // Java EE 7 and JAX-RS Analyzer API is needed internally
-        dependencies.add(fetchDependency("javax:javaee-api:7.0"));
-        dependencies.add(fetchDependency("com.sebastian-daschner:jaxrs-analyzer:" + analyzerVersion));
-        return dependencies;
+    private static long countClassFiles(final Set<Path> projectPaths) {
+        long count = 0;
+        for (final Path projectPath : projectPaths) {
+            try (Stream<Path> stream = Files.walk(projectPath)) {
+                count += stream.filter(p -> p.toString().endsWith(".class")).count();
+            } catch (IOException e) {
+                LogProvider.debug("Could not count classes in " + projectPath + ": " + e.getMessage());
+            }
+        }
+        return count;
     }
 
-    private Path fetchDependency(final String artifactIdentifier) throws MojoExecutionException {
-        ArtifactRequest request = new ArtifactRequest();
-        final DefaultArtifact artifact = new DefaultArtifact(artifactIdentifier);
-        request.setArtifact(artifact);
-        request.setRepositories(remoteRepos);
+    private String calculateFingerprint(final List<BackendType> backendTypes, final Map<String, String> backendConfig, final Set<Path> classPaths,
+                                        final Set<Path> projectPaths, final Set<Path> sourcePaths, final ContentHashCache classHashes,
+                                        final ContentHashCache sourceHashes) {
+        final InputFingerprint fingerprint = new InputFingerprint()
+                .add("projectName", project.getName())
+                .add("projectVersion", project.getVersion())
+                .add("analyzerVersion", getAnalyzerVersion())
+                .add("backends", backendTypes.stream().map(Enum::name).collect(joining(",")))
+                .add("encoding", encoding)
+                .add("ignoredRootResources", Stream.of(ignoredRootResources).sorted().collect(joining(",")))
+                // the restrictions change the analyzed classes and parsed sources, e.g. of classes which are reached by reflection only
+                .add("restrictProjectClasses", String.valueOf(restrictProjectClasses))
+                .add("restrictSourcePaths", String.valueOf(restrictSourcePaths))
+                .add("pruneClassPath", String.valueOf(pruneClassPath));
+        backendConfig.forEach((key, value) -> fingerprint.add("backendConfig." + key, value));
+        classPaths.forEach(p -> fingerprint.addFiles("classPath", p));
+        // project classes are identified by content, recompiled but identical classes don't trigger a new analysis
+        projectPaths.forEach(p -> fingerprint.addContents("projectClassPath", p, classHashes));
+        sourcePaths.forEach(p -> fingerprint.addContents("sourcePath", p, sourceHashes));
+        LogProvider.debug(classHashes.getChangedCount() + " project class files and " + sourceHashes.getChangedCount() + " source files changed since the last run");
+        return fingerprint.compute();
+    }
 
-        LogProvider.debug("Resolving artifact " + artifact + " from " + remoteRepos);
+    private boolean isUpToDate(final Path fingerprintLocation, final String fingerprint, final List<Path> fileLocations) {
+        if (!Files.exists(fingerprintLocation) || !fileLocations.stream().allMatch(Files::exists))
+            return false;
+        try {
+            return fingerprint.equals(new String(Files.readAllBytes(fingerprintLocation), StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            LogProvider.debug("Could not read fingerprint " + fingerprintLocation + ": " + e.getMessage());
+            return false;
+        }
+    }
 
-        ArtifactResult result;
+    private void saveHashes(final ContentHashCache hashes) {
         try {
-            result = repoSystem.resolveArtifact(repoSession, request);
-        } catch (ArtifactResolutionException e) {
-            throw new MojoExecutionException(e.getMessage(), e);
+            hashes.save();
+        } catch (IOException e) {
+            LogProvider.debug("Could not save content hashes: " + e.getMessage());
         }
+    }
 
-        LogProvider.debug("Resolved artifact " + artifact + " to " + result.getArtifact().getFile() + " from " + result.getRepository());
-        return result.getArtifact().getFile().toPath();
+    private void writeFingerprint(final Path fingerprintLocation, final String fingerprint) throws MojoExecutionException {
+        try {
+            Files.write(fingerprintLocation, fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write fingerprint " + fingerprintLocation, e);
+        }
     }
 
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Collections.singleton;
+
+/**
+ * Maven goal which watches the class and source files and re-analyzes the JAX-RS resources on every change.
+ * Changes are debounced, e.g. to wait until the IDE finished compiling, and the generated files are replaced atomically.
+ * The goal runs until Maven is terminated.
+ *
+ * @author Sebastian Daschner
+ * @goal watch
+ * @requiresDependencyResolution compile
+ */
+public class JAXRSAnalyzerWatchMojo extends AbstractJAXRSAnalyzerMojo {
+
+    /**
+     * @parameter property="project.build.outputDirectory"
+     * @required
+     * @readonly
+     */
+    private File outputDirectory;
+
+    /**
+     * @parameter property="project.build.sourceDirectory"
+     * @required
+     * @readonly
+     */
+    private File sourceDirectory;
+
+    /**
+     * @parameter property="project.build.directory"
+     * @required
+     * @readonly
+     */
+    private File buildDirectory;
+
+    /**
+     * The time in milliseconds without further changes after which the resources are re-analyzed.
+     *
+     * @parameter default-value="500" property="jaxrs-analyzer.watchDebounce"
+     */
+    private Integer watchDebounce;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        injectMavenLoggers();
+        handleSourceEncoding();
+
+        if (!outputDirectory.isDirectory()) {
+            LogProvider.info("skipping non existing directory " + outputDirectory);
+            return;
+        }
+
+        final List<BackendType> backendTypes = getBackendTypes();
+        final Set<Path> projectPaths = singleton(outputDirectory.toPath());
+        final Set<String> ignoredResources = Stream.of(ignoredRootResources).collect(Collectors.toSet());
+
+        // the dependencies don't change while watching
+        final Set<Path> classPaths = getAnalysisClassPaths(projectPaths);
+
+        final File resourcesDirectory = buildDirectory.toPath().resolve(resourcesDir).toFile();
+        if (!resourcesDirectory.exists() && !resourcesDirectory.mkdirs())
+            throw new MojoExecutionException("Could not create directory " + resourcesDirectory);
+        final BackendRenderer renderer = new BackendRenderer(getBackendConfig(), resourcesDirectory.toPath());
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            final Map<WatchKey, Path> directories = new HashMap<>();
+            register(watchService, outputDirectory.toPath(), directories);
+            register(watchService, sourceDirectory.toPath(), directories);
+
+            analyze(classPaths, projectPaths, ignoredResources, renderer, backendTypes);
+            LogProvider.info("Watching " + outputDirectory + " and " + sourceDirectory + " for changes");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = handleEvents(watchService.take(), watchService, directories);
+
+                // wait until no further changes occur
+                WatchKey key;
+                while ((key = watchService.poll(watchDebounce, TimeUnit.MILLISECONDS)) != null)
+                    changed |= handleEvents(key, watchService, directories);
+
+                if (changed)
+                    analyze(classPaths, projectPaths, ignoredResources, renderer, backendTypes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not watch for changes: " + e.getMessage(), e);
+        }
+    }
+
+    private void analyze(final Set<Path> classPaths, final Set<Path> projectPaths, final Set<String> ignoredResources,
+                         final BackendRenderer renderer, final List<BackendType> backendTypes) {
+        final long start = System.currentTimeMillis();
+        try {
+            final Set<Path> analysisSourcePaths = getAnalysisSourcePaths(projectPaths, sourceDirectory.toPath(), buildDirectory.toPath());
+            final Set<Path> analysisProjectPaths = getAnalysisProjectPaths(projectPaths, classPaths, buildDirectory.toPath());
+            final Resources resources = analyze(classPaths, analysisProjectPaths, analysisSourcePaths, ignoredResources);
+            if (resources.isEmpty()) {
+                LogProvider.info("Empty JAX-RS analysis result, omitting output");
+                return;
+            }
+            renderer.render(new Project(project.getName(), project.getVersion(), resources), backendTypes);
+            LogProvider.info("Analyzed " + resources.getResources().size() + " resources in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            // keep on watching, the next change might fix the problem
+            LogProvider.error("Could not analyze resources: " + e.getMessage());
+            LogProvider.debugStackTrace(e);
+        }
+    }
+
+    /**
+     * Registers the directory and all sub-directories.
+     */
+    private static void register(final WatchService watchService, final Path directory, final Map<WatchKey, Path> directories) throws IOException {
+        if (!Files.isDirectory(directory))
+            return;
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (final Path path : stream.filter(Files::isDirectory).collect(Collectors.toList()))
+                directories.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+        }
+    }
+
+    /**
+     * Returns if the events of the key contain any relevant change. New directories are registered as well.
+     */
+    private static boolean handleEvents(final WatchKey key, final WatchService watchService, final Map<WatchKey, Path> directories) throws IOException {
+        boolean changed = false;
+        final Path directory = directories.get(key);
+
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                changed = true;
+                continue;
+            }
+
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+                register(watchService, path, directories);
+
+            final String name = path.getFileName().toString();
+            changed |= name.endsWith(".class") || name.endsWith(".java") || Files.isDirectory(path);
+        }
+
+        if (!key.reset())
+            directories.remove(key);
+        return changed;
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Index of the class entries of a jar file, containing the offsets of the entries within the jar.
+ * The index is persisted in a shared directory and re-used by all executions as long as the size and modification time
+ * of the jar are unchanged.
+ * Class files are read directly from the memory-mapped jar at the indexed offsets, without parsing the ZIP headers again.
+ * <p>
+ * ZIP64 archives and jars larger than 2 GB are not supported.
+ *
+ * @author Sebastian Daschner
+ */
+class JarIndex {
+
+    private static final int MAGIC = 0x4a494458;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Path jar;
+    private final Map<String, Entry> entries;
+    private ByteBuffer content;
+
+    private JarIndex(final Path jar, final Map<String, Entry> entries) {
+        this.jar = jar;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the index of the given jar from the index directory or creates and stores it, if it's missing or outdated.
+     */
+    static JarIndex load(final Path jar, final Path indexDirectory) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        final long size = attributes.size();
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        final Path indexFile = indexDirectory.resolve(
+                InputFingerprint.toHex(InputFingerprint.sha256().digest(jar.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8))) + ".idx");
+
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                final Map<String, Entry> entries = readIndex(indexFile, size, lastModified);
+                if (entries != null)
+                    return new JarIndex(jar, entries);
+            } catch (IOException | RuntimeException e) {
+                LogProvider.debug("Discarding index " + indexFile + ": " + e.getMessage());
+            }
+        }
+
+        final JarIndex index = new JarIndex(jar, readCentralDirectory(jar));
+        try {
+            writeIndex(indexFile, size, lastModified, index.entries);
+        } catch (IOException e) {
+            LogProvider.debug("Could not write index " + indexFile + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Returns the internal names of all classes contained in the jar.
+     */
+    Set<String> getClassNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Returns the contents of the given class file.
+     *
+     * @param className The internal class name, e.g. {@code com/example/Model}
+     */
+    byte[] read(final String className) throws IOException {
+        final Entry entry = entries.get(className);
+        if (entry == null)
+            throw new NoSuchFileException(className + CLASS_SUFFIX);
+
+        final ByteBuffer zip = getContent();
+        if (zip.getInt(entry.offset) != LOCAL_HEADER)
+            throw new IOException("Invalid local header of " + className + CLASS_SUFFIX);
+
+        final int dataOffset = entry.offset + 30 + (zip.getShort(entry.offset + 26) & 0xffff) + (zip.getShort(entry.offset + 28) & 0xffff);
+        // the inflater may need an additional dummy byte
+        final byte[] data = new byte[entry.compressedSize + 1];
+        final ByteBuffer source = zip.duplicate();
+        source.position(dataOffset);
+        source.get(data, 0, entry.compressedSize);
+
+        switch (entry.method) {
+            case STORED:
+                final byte[] stored = new byte[entry.size];
+                System.arraycopy(data, 0, stored, 0, entry.size);
+                return stored;
+            case DEFLATED:
+                return inflate(data, entry.size);
+            default:
+                throw new IOException("Unsupported compression method " + entry.method + " of " + className + CLASS_SUFFIX);
+        }
+    }
+
+    private synchronized ByteBuffer getContent() throws IOException {
+        if (content == null)
+            content = map(jar).order(ByteOrder.LITTLE_ENDIAN);
+        return content;
+    }
+
+    private static byte[] inflate(final byte[] data, final int size) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            final byte[] result = new byte[size];
+            int position = 0;
+            while (position < size && !inflater.finished()) {
+                final int inflated = inflater.inflate(result, position, size - position);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Truncated ZIP entry");
+                position += inflated;
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt ZIP entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static MappedByteBuffer map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to be indexed");
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Map<String, Entry> readCentralDirectory(final Path jar) throws IOException {
+        final ByteBuffer zip = map(jar).order(ByteOrder.LITTLE_ENDIAN);
+        final int end = findEndOfCentralDirectory(zip);
+        final int count = zip.getShort(end + 10) & 0xffff;
+        final long directoryOffset = zip.getInt(end + 16) & 0xffffffffL;
+        if (count == 0xffff || directoryOffset == 0xffffffffL)
+            throw new IOException("ZIP64 archive " + jar + " is not supported");
+
+        final Map<String, Entry> entries = new HashMap<>();
+        int position = (int) directoryOffset;
+        for (int i = 0; i < count; i++) {
+            if (zip.getInt(position) != CENTRAL_HEADER)
+                throw new IOException("Invalid central directory of " + jar);
+
+            final int nameLength = zip.getShort(position + 28) & 0xffff;
+            final String name = readString(zip, position + 46, nameLength);
+            if (name.endsWith(CLASS_SUFFIX))
+                entries.put(name.substring(0, name.length() - CLASS_SUFFIX.length()), new Entry(zip.getShort(position + 10) & 0xffff,
+                        zip.getInt(position + 42), zip.getInt(position + 20), zip.getInt(position + 24)));
+
+            position += 46 + nameLength + (zip.getShort(position + 30) & 0xffff) + (zip.getShort(position + 32) & 0xffff);
+        }
+        return entries;
+    }
+
+    private static int findEndOfCentralDirectory(final ByteBuffer zip) throws IOException {
+        // the record is followed by a comment of at most 64 KB, which may contain the signature itself
+        final int lowest = Math.max(0, zip.limit() - 22 - 0xffff);
+        for (int position = zip.limit() - 22; position >= lowest; position--) {
+            if (zip.getInt(position) == END_OF_CENTRAL_DIRECTORY && isEndOfCentralDirectory(zip, position))
+                return position;
+        }
+        throw new IOException("Not a ZIP archive");
+    }
+
+    private static boolean isEndOfCentralDirectory(final ByteBuffer zip, final int position) {
+        if (position + 22 + (zip.getShort(position + 20) & 0xffff) > zip.limit())
+            return false;
+
+        // ZIP64 archives are rejected later on
+        final int count = zip.getShort(position + 10) & 0xffff;
+        final long directoryOffset = zip.getInt(position + 16) & 0xffffffffL;
+        if (count == 0 || directoryOffset == 0xffffffffL)
+            return true;
+        return directoryOffset <= position - 4 && zip.getInt((int) directoryOffset) == CENTRAL_HEADER;
+    }
+
+    private static Map<String, Entry> readIndex(final Path indexFile, final long size, final long lastModified) throws IOException {
+        final ByteBuffer buffer = map(indexFile);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != size || buffer.getLong() != lastModified)
+            return null;
+
+        final int count = buffer.getInt();
+        // an entry takes at least 15 bytes, a corrupt count must not size the map
+        if (count < 0 || count > buffer.remaining() / 15)
+            throw new IOException("Invalid entry count " + count);
+        final Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            final int nameLength = buffer.getShort() & 0xffff;
+            final String name = readString(buffer, buffer.position(), nameLength);
+            buffer.position(buffer.position() + nameLength);
+            entries.put(name, new Entry(buffer.get() & 0xff, buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        return entries;
+    }
+
+    private static void writeIndex(final Path indexFile, final long size, final long lastModified, final Map<String, Entry> entries) throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        // concurrent builds may index the same jar
+        final Path temporary = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(size);
+                out.writeLong(lastModified);
+                out.writeInt(entries.size());
+                for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+                    final byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(name.length);
+                    out.write(name);
+                    out.writeByte(e.getValue().method);
+                    out.writeInt(e.getValue().offset);
+                    out.writeInt(e.getValue().compressedSize);
+                    out.writeInt(e.getValue().size);
+                }
+            }
+            Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer, final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+
+        private final int method;
+        private final int offset;
+        private final int compressedSize;
+        private final int size;
+
+        private Entry(final int method, final int offset, final int compressedSize, final int size) {
+            this.method = method;
+            this.offset = offset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The heap memory which the plugin aims to use during an analysis run.
+ * The budget determines the capacity of the plugin caches; the peak usage is taken from the heap memory pools, whose
+ * peaks are reset when the budget is created.
+ * <p>
+ * The heap pools are shared by the whole JVM. If other budgeted executions are active, e.g. in parallel builds, the
+ * peaks are not reset, the reported peak then covers the concurrent executions as well.
+ *
+ * @author Sebastian Daschner
+ */
+class MemoryBudget implements AutoCloseable {
+
+    private static final AtomicInteger ACTIVE_BUDGETS = new AtomicInteger();
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    // the approximate heap size of the references of a single class, including the strings
+    private static final int REFERENCES_SIZE = 4096;
+
+    private final long budget;
+    private final List<MemoryPoolMXBean> heapPools;
+
+    MemoryBudget(final int megabytes) {
+        budget = megabytes * MEGABYTE;
+        heapPools = ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP).collect(Collectors.toList());
+        // resetting the peaks would falsify the numbers of concurrent executions
+        if (ACTIVE_BUDGETS.getAndIncrement() == 0)
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    long getMegabytes() {
+        return budget / MEGABYTE;
+    }
+
+    /**
+     * Returns the number of class references which may be cached, a quarter of the budget.
+     */
+    int getReferenceCapacity() {
+        return (int) Math.min(Integer.MAX_VALUE, budget / 4 / REFERENCES_SIZE);
+    }
+
+    /**
+     * Returns the peak heap usage since the creation in megabytes.
+     * The peaks of the single memory pools are summed up, the result is therefore an upper bound.
+     */
+    long getPeakMegabytes() {
+        // the usage of invalid pools is null
+        return heapPools.stream().map(MemoryPoolMXBean::getPeakUsage).filter(Objects::nonNull).mapToLong(MemoryUsage::getUsed).sum() / MEGABYTE;
+    }
+
+    boolean isExceeded() {
+        return getPeakMegabytes() > getMegabytes();
+    }
+
+    @Override
+    public void close() {
+        ACTIVE_BUDGETS.decrementAndGet();
+    }
+
+}
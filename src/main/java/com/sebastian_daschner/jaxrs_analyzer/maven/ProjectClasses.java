@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The class files of the project paths together with their {@link ClassReferences constant pool references}.
+ * The class files are read using parallel streams.
+ *
+ * @author Sebastian Daschner
+ */
+class ProjectClasses {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final Map<String, ClassReferences> classes = new ConcurrentHashMap<>();
+    private final Map<String, Path> files = new ConcurrentHashMap<>();
+
+    private ProjectClasses() {
+    }
+
+    static ProjectClasses read(final Set<Path> projectPaths) throws IOException {
+        final ProjectClasses projectClasses = new ProjectClasses();
+        for (final Path projectPath : projectPaths) {
+            if (!Files.isDirectory(projectPath))
+                continue;
+
+            try (Stream<Path> stream = Files.walk(projectPath)) {
+                stream.filter(p -> p.toString().endsWith(CLASS_SUFFIX)).collect(Collectors.toList()).parallelStream().forEach(file -> {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        final ClassReferences references = ClassReferences.read(in);
+                        // the first project path wins
+                        if (projectClasses.classes.putIfAbsent(references.getClassName(), references) == null)
+                            projectClasses.files.put(references.getClassName(), file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read " + file, e);
+                    }
+                });
+            }
+        }
+        return projectClasses;
+    }
+
+    int size() {
+        return classes.size();
+    }
+
+    Collection<ClassReferences> getClasses() {
+        return classes.values();
+    }
+
+    /**
+     * Returns the class file of the given class.
+     *
+     * @param className The internal class name, e.g. {@code com/example/Model}
+     */
+    Path getFile(final String className) {
+        return files.get(className);
+    }
+
+    /**
+     * Returns the given classes and all project classes which directly or transitively extend or implement them.
+     */
+    Set<String> getSubTypes(final Set<String> types) {
+        final Set<String> subTypes = new HashSet<>(types);
+        boolean added;
+        do {
+            final Set<String> next = classes.values().stream()
+                    .filter(c -> !subTypes.contains(c.getClassName()) && c.getSuperTypes().stream().anyMatch(subTypes::contains))
+                    .map(ClassReferences::getClassName).collect(Collectors.toCollection(HashSet::new));
+            added = subTypes.addAll(next);
+        } while (added);
+        return subTypes;
+    }
+
+    /**
+     * Returns the given classes and all project classes which are transitively referenced by them.
+     */
+    Set<String> getReachable(final Set<String> roots) {
+        final Deque<String> pending = new ArrayDeque<>(roots);
+        final Set<String> reachable = new HashSet<>(roots);
+
+        while (!pending.isEmpty()) {
+            for (final String referenced : classes.get(pending.pop()).getReferencedClasses()) {
+                if (classes.containsKey(referenced) && reachable.add(referenced))
+                    pending.push(referenced);
+            }
+        }
+        return reachable;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Copies the class files which the analyzer has to analyze into a staging directory.
+ * These are the resource classes, which reference {@code javax.ws.rs.Path} or {@code javax.ws.rs.ApplicationPath} in
+ * their constant pool, the project classes which extend or implement them, and all project classes reachable from them,
+ * such as entity types and sub-resources. Only the constant pools of the class files are read.
+ *
+ * @author Sebastian Daschner
+ */
+class ResourceClassStager {
+
+    private static final String PATH = "javax/ws/rs/Path";
+    private static final String APPLICATION_PATH = "javax/ws/rs/ApplicationPath";
+    private static final String CLASS_SUFFIX = ".class";
+
+    private ResourceClassStager() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stages the relevant class files of the given project paths and returns the number of staged files.
+     * The staging directory is cleared before.
+     */
+    static int stage(final Set<Path> projectPaths, final Path stagingDirectory) throws IOException {
+        final ProjectClasses classes = ProjectClasses.read(projectPaths);
+
+        // JAX-RS annotations of super classes and interfaces are inherited
+        final Set<String> resources = classes.getSubTypes(classes.getClasses().stream().filter(c -> c.references(PATH) || c.references(APPLICATION_PATH))
+                .map(ClassReferences::getClassName).collect(Collectors.toSet()));
+
+        final Set<String> reachable = classes.getReachable(resources);
+
+        SourceStager.delete(stagingDirectory);
+        Files.createDirectories(stagingDirectory);
+        reachable.parallelStream().forEach(c -> copy(classes.getFile(c), stagingDirectory.resolve(c + CLASS_SUFFIX)));
+
+        LogProvider.debug("Staged " + reachable.size() + " of " + classes.size() + " project classes, " + resources.size()
+                + " resource classes, in " + stagingDirectory);
+        return reachable.size();
+    }
+
+    private static void copy(final Path source, final Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not stage " + source, e);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.LogProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copies the source files which are relevant for the analysis into a staging directory, so that the analyzer only parses
+ * these compilation units for JavaDoc comments.
+ * Relevant are the project classes which use the JAX-RS API, e.g. resource classes, the project classes which extend or
+ * implement them, and all project classes reachable from them, such as entity types and sub-resources.
+ * Class files are read and source files are copied using parallel streams.
+ *
+ * @author Sebastian Daschner
+ */
+class SourceStager {
+
+    private static final String JAX_RS_PACKAGE = "javax/ws/rs/";
+    private static final String SOURCE_SUFFIX = ".java";
+
+    private SourceStager() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stages the relevant source files of the given project paths and returns the number of staged files.
+     * The staging directory is cleared before.
+     */
+    static int stage(final Set<Path> projectPaths, final Path sourceDirectory, final Path stagingDirectory) throws IOException {
+        final ProjectClasses classes = ProjectClasses.read(projectPaths);
+
+        // resource methods may be inherited by sub-classes which don't use the JAX-RS API themselves
+        final Set<String> reachable = classes.getReachable(classes.getSubTypes(classes.getClasses().stream()
+                .filter(c -> c.getReferencedClasses().stream().anyMatch(r -> r.startsWith(JAX_RS_PACKAGE)))
+                .map(ClassReferences::getClassName).collect(Collectors.toSet())));
+
+        delete(stagingDirectory);
+        Files.createDirectories(stagingDirectory);
+
+        final long staged = reachable.stream().map(SourceStager::getCompilationUnit).distinct().collect(Collectors.toList())
+                .parallelStream().filter(unit -> copy(sourceDirectory, stagingDirectory, unit)).count();
+
+        LogProvider.debug("Staged " + staged + " source files of " + classes.size() + " project classes in " + stagingDirectory);
+        return (int) staged;
+    }
+
+    private static boolean copy(final Path sourceDirectory, final Path stagingDirectory, final String compilationUnit) {
+        final Path source = sourceDirectory.resolve(compilationUnit);
+        // generated classes or secondary top-level classes don't have a source file of their own
+        if (!Files.isRegularFile(source)) {
+            LogProvider.debug("No source file " + source + " found");
+            return false;
+        }
+
+        final Path target = stagingDirectory.resolve(compilationUnit);
+        try {
+            Files.createDirectories(target.getParent());
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not stage " + source, e);
+        }
+    }
+
+    private static String getCompilationUnit(final String className) {
+        final int nested = className.indexOf('$');
+        return (nested < 0 ? className : className.substring(0, nested)) + SOURCE_SUFFIX;
+    }
+
+    /**
+     * Deletes the given directory recursively, if it exists.
+     */
+    static void delete(final Path directory) throws IOException {
+        if (!Files.exists(directory))
+            return;
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (final Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(path);
+        }
+    }
+
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Writes the Swagger document of a project without building the JSON tree of the whole document.
+ * Every resource is rendered on its own into a temporary file; the paths and definitions of these documents are then
+ * streamed into the output. Definitions which are used by several resources are written once, identified by their
+ * name and content hash.
+ * The peak memory usage is therefore proportional to the largest resource, not to the whole API.
+ *
+ * @author Sebastian Daschner
+ */
+class SwaggerStreamingWriter {
+
+    private static final String PATHS = "paths";
+    private static final String DEFINITIONS = "definitions";
+
+    private final Map<String, String> config;
+
+    SwaggerStreamingWriter(final Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * Writes the Swagger document of the project to the output.
+     * Returns {@code false} if the documents of the single resources can't be merged consistently, e.g. if different
+     * types share the same definition name. The project then has to be rendered as a whole, the output is incomplete.
+     */
+    boolean write(final Project project, final OutputStream output) throws IOException {
+        final Path chunkDirectory = Files.createTempDirectory("jaxrs-analyzer-swagger");
+        try {
+            return merge(renderResources(project, chunkDirectory), output);
+        } catch (JsonException e) {
+            throw new IOException("Could not merge Swagger documents: " + e.getMessage(), e);
+        } finally {
+            try (DirectoryStream<Path> chunks = Files.newDirectoryStream(chunkDirectory)) {
+                for (final Path chunk : chunks)
+                    Files.delete(chunk);
+            }
+            Files.delete(chunkDirectory);
+        }
+    }
+
+    private List<Path> renderResources(final Project project, final Path chunkDirectory) throws IOException {
+        final Resources resources = project.getResources();
+        final List<Path> chunks = new ArrayList<>();
+
+        for (final String resource : new TreeSet<>(resources.getResources())) {
+            final Resources chunk = new Resources();
+            chunk.setBasePath(resources.getBasePath());
+            chunk.setTypeRepresentations(resources.getTypeRepresentations());
+            chunk.addMethods(resource, resources.getMethods(resource));
+
+            final Path file = chunkDirectory.resolve(chunks.size() + ".json");
+            Files.write(file, BackendRenderer.configureBackend(BackendType.SWAGGER, config).render(new Project(project.getName(), project.getVersion(), chunk)));
+            chunks.add(file);
+        }
+        return chunks;
+    }
+
+    /**
+     * Merges the Swagger documents of the single resources into the output, see {@link #write(Project, OutputStream)}.
+     */
+    static boolean merge(final List<Path> chunks, final OutputStream output) throws IOException {
+        if (chunks.isEmpty())
+            return false;
+
+        // the remaining members, e.g. info and base path, have to be identical in all documents, arrays such as the tags are merged
+        final Header header = new Header();
+        for (final Path chunk : chunks) {
+            final boolean[] conflict = {false};
+            forEachMember(chunk, null, (name, parser, event) -> conflict[0] |= !header.add(name, parser, event));
+            if (conflict[0])
+                return false;
+        }
+
+        final JsonGenerator generator = Json.createGeneratorFactory(Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true))
+                .createGenerator(output, StandardCharsets.UTF_8);
+        generator.writeStartObject();
+        header.write(generator);
+
+        generator.writeStartObject(PATHS);
+        final Set<String> paths = new HashSet<>();
+        for (final Path chunk : chunks) {
+            final boolean[] duplicate = {false};
+            forEachMember(chunk, PATHS, (name, parser, event) -> {
+                duplicate[0] |= !paths.add(name);
+                copy(parser, event, name, duplicate[0] ? null : generator);
+            });
+            if (duplicate[0])
+                return false;
+        }
+        generator.writeEnd();
+
+        generator.writeStartObject(DEFINITIONS);
+        final Map<String, Long> definitions = new HashMap<>();
+        for (final Path chunk : chunks) {
+            final boolean[] conflict = {false};
+            forEachMember(chunk, DEFINITIONS, (name, parser, event) -> {
+                final Long known = definitions.get(name);
+                final long hash = copy(parser, event, name, known == null ? generator : null);
+                if (known == null)
+                    definitions.put(name, hash);
+                else
+                    conflict[0] |= known != hash;
+            });
+            if (conflict[0])
+                return false;
+        }
+        generator.writeEnd();
+
+        generator.writeEnd();
+        generator.flush();
+        return true;
+    }
+
+    /**
+     * Calls the handler for every member of the given top-level object, or for all top-level members except the paths
+     * and definitions, if the object name is {@code null}. All other values are skipped.
+     */
+    private static void forEachMember(final Path chunk, final String object, final MemberHandler handler) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(chunk));
+             JsonParser parser = Json.createParser(in)) {
+            parser.next();
+            while (parser.next() == JsonParser.Event.KEY_NAME) {
+                final String name = parser.getString();
+                final JsonParser.Event event = parser.next();
+
+                if (object == null && !PATHS.equals(name) && !DEFINITIONS.equals(name)) {
+                    handler.handle(name, parser, event);
+                } else if (name.equals(object) && event == JsonParser.Event.START_OBJECT) {
+                    while (parser.next() == JsonParser.Event.KEY_NAME) {
+                        final String member = parser.getString();
+                        handler.handle(member, parser, parser.next());
+                    }
+                } else {
+                    copy(parser, event, name, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the current value to the generator, if present, and returns the hash of the value.
+     */
+    private static long copy(final JsonParser parser, final JsonParser.Event event, final String name, final JsonGenerator generator) {
+        return copy(parser, event, name, generator, null);
+    }
+
+    /**
+     * Copies the current value to the generator and records it as tokens, if present, and returns the hash of the value.
+     */
+    private static long copy(final JsonParser parser, final JsonParser.Event event, final String name, final JsonGenerator generator,
+                             final List<Token> tokens) {
+        final MessageDigest digest = InputFingerprint.sha256();
+        copy(parser, event, name, generator, tokens, digest);
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void copy(final JsonParser parser, final JsonParser.Event event, final String name, final JsonGenerator generator,
+                             final List<Token> tokens, final MessageDigest digest) {
+        digest.update((byte) event.ordinal());
+        if (tokens != null)
+            tokens.add(new Token(event, name, event == JsonParser.Event.VALUE_STRING || event == JsonParser.Event.VALUE_NUMBER ? parser.getString() : null,
+                    event == JsonParser.Event.VALUE_NUMBER && parser.isIntegralNumber()));
+
+        switch (event) {
+            case START_OBJECT:
+                if (generator != null) {
+                    if (name == null)
+                        generator.writeStartObject();
+                    else
+                        generator.writeStartObject(name);
+                }
+                JsonParser.Event next;
+                while ((next = parser.next()) == JsonParser.Event.KEY_NAME) {
+                    final String key = parser.getString();
+                    update(digest, key);
+                    copy(parser, parser.next(), key, generator, tokens, digest);
+                }
+                digest.update((byte) next.ordinal());
+                if (tokens != null)
+                    tokens.add(new Token(next, null, null, false));
+                if (generator != null)
+                    generator.writeEnd();
+                break;
+            case START_ARRAY:
+                if (generator != null) {
+                    if (name == null)
+                        generator.writeStartArray();
+                    else
+                        generator.writeStartArray(name);
+                }
+                JsonParser.Event element;
+                while ((element = parser.next()) != JsonParser.Event.END_ARRAY)
+                    copy(parser, element, null, generator, tokens, digest);
+                digest.update((byte) element.ordinal());
+                if (tokens != null)
+                    tokens.add(new Token(element, null, null, false));
+                if (generator != null)
+                    generator.writeEnd();
+                break;
+            case VALUE_STRING:
+                update(digest, parser.getString());
+                if (generator != null) {
+                    if (name == null)
+                        generator.write(parser.getString());
+                    else
+                        generator.write(name, parser.getString());
+                }
+                break;
+            case VALUE_NUMBER:
+                update(digest, parser.getString());
+                if (generator != null) {
+                    if (parser.isIntegralNumber()) {
+                        if (name == null)
+                            generator.write(parser.getLong());
+                        else
+                            generator.write(name, parser.getLong());
+                    } else {
+                        if (name == null)
+                            generator.write(parser.getBigDecimal());
+                        else
+                            generator.write(name, parser.getBigDecimal());
+                    }
+                }
+                break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                if (generator != null) {
+                    if (name == null)
+                        generator.write(event == JsonParser.Event.VALUE_TRUE);
+                    else
+                        generator.write(name, event == JsonParser.Event.VALUE_TRUE);
+                }
+                break;
+            case VALUE_NULL:
+                if (generator != null) {
+                    if (name == null)
+                        generator.writeNull();
+                    else
+                        generator.writeNull(name);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unexpected JSON event " + event);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Writes the recorded tokens of a value to the generator.
+     */
+    private static void replay(final List<Token> tokens, final JsonGenerator generator) {
+        for (final Token token : tokens) {
+            switch (token.event) {
+                case START_OBJECT:
+                    if (token.name == null)
+                        generator.writeStartObject();
+                    else
+                        generator.writeStartObject(token.name);
+                    break;
+                case START_ARRAY:
+                    if (token.name == null)
+                        generator.writeStartArray();
+                    else
+                        generator.writeStartArray(token.name);
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    generator.writeEnd();
+                    break;
+                case VALUE_STRING:
+                    if (token.name == null)
+                        generator.write(token.value);
+                    else
+                        generator.write(token.name, token.value);
+                    break;
+                case VALUE_NUMBER:
+                    if (token.integral) {
+                        if (token.name == null)
+                            generator.write(Long.parseLong(token.value));
+                        else
+                            generator.write(token.name, Long.parseLong(token.value));
+                    } else {
+                        if (token.name == null)
+                            generator.write(new BigDecimal(token.value));
+                        else
+                            generator.write(token.name, new BigDecimal(token.value));
+                    }
+                    break;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    if (token.name == null)
+                        generator.write(token.event == JsonParser.Event.VALUE_TRUE);
+                    else
+                        generator.write(token.name, token.event == JsonParser.Event.VALUE_TRUE);
+                    break;
+                case VALUE_NULL:
+                    if (token.name == null)
+                        generator.writeNull();
+                    else
+                        generator.writeNull(token.name);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected JSON event " + token.event);
+            }
+        }
+    }
+
+    /**
+     * The top-level members of the documents, except the paths and definitions, in order of their first occurrence.
+     * Array members, e.g. the tags which depend on the resources of a document, are merged into the distinct elements of
+     * all documents; all other members have to be identical. The members are small and therefore kept in memory.
+     */
+    private static class Header {
+
+        private final Map<String, Member> members = new LinkedHashMap<>();
+
+        /**
+         * Adds the current member of a document and returns {@code false} if it conflicts with the other documents.
+         */
+        boolean add(final String name, final JsonParser parser, final JsonParser.Event event) {
+            final boolean array = event == JsonParser.Event.START_ARRAY;
+            final Member member = members.computeIfAbsent(name, k -> new Member(array));
+            if (member.array != array) {
+                copy(parser, event, name, null);
+                return false;
+            }
+
+            if (!array) {
+                final List<Token> tokens = new ArrayList<>();
+                final long hash = copy(parser, event, name, null, tokens);
+                if (member.hashes.isEmpty()) {
+                    member.hashes.add(hash);
+                    member.tokens.addAll(tokens);
+                }
+                return member.hashes.contains(hash);
+            }
+
+            JsonParser.Event element;
+            while ((element = parser.next()) != JsonParser.Event.END_ARRAY) {
+                final List<Token> tokens = new ArrayList<>();
+                if (member.hashes.add(copy(parser, element, null, null, tokens)))
+                    member.tokens.addAll(tokens);
+            }
+            return true;
+        }
+
+        void write(final JsonGenerator generator) {
+            members.forEach((name, member) -> {
+                if (member.array)
+                    generator.writeStartArray(name);
+                replay(member.tokens, generator);
+                if (member.array)
+                    generator.writeEnd();
+            });
+        }
+
+    }
+
+    private static class Member {
+
+        private final boolean array;
+        private final Set<Long> hashes = new HashSet<>();
+        private final List<Token> tokens = new ArrayList<>();
+
+        private Member(final boolean array) {
+            this.array = array;
+        }
+
+    }
+
+    private static class Token {
+
+        private final JsonParser.Event event;
+        private final String name;
+        private final String value;
+        private final boolean integral;
+
+        private Token(final JsonParser.Event event, final String name, final String value, final boolean integral) {
+            this.event = event;
+            this.name = name;
+            this.value = value;
+            this.integral = integral;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface MemberHandler {
+
+        void handle(String name, JsonParser parser, JsonParser.Event event);
+
+    }
+
+}
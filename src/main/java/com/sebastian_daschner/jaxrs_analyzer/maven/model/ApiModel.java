@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The analyzed REST resources of a project as contained in the binary model format.
+ * The model only consists of strings, collections and nested model classes, it doesn't depend on the JAX-RS Analyzer.
+ * Types are referenced by their identifier, which is the key in {@link #getTypes()}.
+ *
+ * @author Sebastian Daschner
+ * @see ApiModelReader
+ */
+public class ApiModel {
+
+    private final String name;
+    private final String version;
+    private final String basePath;
+    private final List<Resource> resources;
+    private final Map<String, Type> types;
+
+    public ApiModel(final String name, final String version, final String basePath, final List<Resource> resources, final Map<String, Type> types) {
+        this.name = name;
+        this.version = version;
+        this.basePath = basePath;
+        this.resources = Collections.unmodifiableList(resources);
+        this.types = Collections.unmodifiableMap(types);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    /**
+     * Returns the type representations, mapped by their identifiers.
+     */
+    public Map<String, Type> getTypes() {
+        return types;
+    }
+
+    /**
+     * A resource path together with its methods.
+     */
+    public static class Resource {
+
+        private final String path;
+        private final List<Method> methods;
+
+        public Resource(final String path, final List<Method> methods) {
+            this.path = path;
+            this.methods = Collections.unmodifiableList(methods);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<Method> getMethods() {
+            return methods;
+        }
+
+    }
+
+    /**
+     * A resource method. The request body is the identifier of its type, or {@code null}.
+     */
+    public static class Method {
+
+        private final String httpMethod;
+        private final String description;
+        private final List<String> requestMediaTypes;
+        private final List<String> responseMediaTypes;
+        private final List<Parameter> parameters;
+        private final String requestBody;
+        private final List<Response> responses;
+
+        public Method(final String httpMethod, final String description, final List<String> requestMediaTypes, final List<String> responseMediaTypes,
+                      final List<Parameter> parameters, final String requestBody, final List<Response> responses) {
+            this.httpMethod = httpMethod;
+            this.description = description;
+            this.requestMediaTypes = Collections.unmodifiableList(requestMediaTypes);
+            this.responseMediaTypes = Collections.unmodifiableList(responseMediaTypes);
+            this.parameters = Collections.unmodifiableList(parameters);
+            this.requestBody = requestBody;
+            this.responses = Collections.unmodifiableList(responses);
+        }
+
+        public String getHttpMethod() {
+            return httpMethod;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public List<String> getRequestMediaTypes() {
+            return requestMediaTypes;
+        }
+
+        public List<String> getResponseMediaTypes() {
+            return responseMediaTypes;
+        }
+
+        public List<Parameter> getParameters() {
+            return parameters;
+        }
+
+        public String getRequestBody() {
+            return requestBody;
+        }
+
+        public List<Response> getResponses() {
+            return responses;
+        }
+
+    }
+
+    /**
+     * A method parameter. The location is the JAX-RS parameter type, e.g. {@code PATH} or {@code QUERY}.
+     */
+    public static class Parameter {
+
+        private final String location;
+        private final String name;
+        private final String type;
+        private final String defaultValue;
+
+        public Parameter(final String location, final String name, final String type, final String defaultValue) {
+            this.location = location;
+            this.name = name;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+    }
+
+    /**
+     * A possible response of a method. The body is the identifier of its type, or {@code null}.
+     */
+    public static class Response {
+
+        private final int status;
+        private final List<String> headers;
+        private final String body;
+
+        public Response(final int status, final List<String> headers, final String body) {
+            this.status = status;
+            this.headers = Collections.unmodifiableList(headers);
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+    }
+
+    /**
+     * The representation of a type: the properties of a concrete type, the component type of a collection or the values
+     * of an enum. The Java type is the type signature, e.g. {@code Ljava/lang/String;}.
+     */
+    public static class Type {
+
+        public enum Kind {
+            CONCRETE, COLLECTION, ENUM
+        }
+
+        private final String identifier;
+        private final String javaType;
+        private final Kind kind;
+        private final Map<String, String> properties;
+        private final String componentType;
+        private final List<String> enumValues;
+
+        public Type(final String identifier, final String javaType, final Kind kind, final Map<String, String> properties, final String componentType,
+                    final List<String> enumValues) {
+            this.identifier = identifier;
+            this.javaType = javaType;
+            this.kind = kind;
+            this.properties = Collections.unmodifiableMap(properties);
+            this.componentType = componentType;
+            this.enumValues = Collections.unmodifiableList(enumValues);
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public String getJavaType() {
+            return javaType;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the property names and type identifiers of a concrete type.
+         */
+        public Map<String, String> getProperties() {
+            return properties;
+        }
+
+        /**
+         * Returns the identifier of the component type of a collection, or {@code null}.
+         */
+        public String getComponentType() {
+            return componentType;
+        }
+
+        public List<String> getEnumValues() {
+            return enumValues;
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the binary model format, as written by the {@code binary} backend, into an {@link ApiModel}.
+ * Documents of newer format versions are rejected. Gzip-compressed documents are decompressed transparently.
+ * <p>
+ * Usage:
+ * <pre>
+ * ApiModel model = ApiModelReader.read(Paths.get("target/jaxrs-analyzer/rest-resources.bin"));
+ * </pre>
+ *
+ * @author Sebastian Daschner
+ * @see ApiModelWriter
+ */
+public class ApiModelReader {
+
+    static final int MAGIC = 0x4a41584d;
+    static final int FORMAT_VERSION = 1;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    /**
+     * The maximum number of elements or bytes of a single count. Collections aren't pre-sized with the counts, so corrupt
+     * documents end with an {@link java.io.EOFException} instead of allocating memory for elements which don't exist.
+     */
+    private static final int MAX_COUNT = 1 << 24;
+
+    private final DataInputStream in;
+    private String[] strings;
+
+    private ApiModelReader(final DataInputStream in) {
+        this.in = in;
+    }
+
+    public static ApiModel read(final Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads the model from the input stream, which is not closed.
+     */
+    public static ApiModel read(final InputStream input) throws IOException {
+        final BufferedInputStream buffered = new BufferedInputStream(input, 65536);
+        buffered.mark(2);
+        final int first = buffered.read();
+        final int second = buffered.read();
+        buffered.reset();
+
+        final InputStream in = (first | second << 8) == GZIP_MAGIC ? new BufferedInputStream(new GZIPInputStream(buffered), 65536) : buffered;
+        return new ApiModelReader(new DataInputStream(in)).readModel();
+    }
+
+    private ApiModel readModel() throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a binary model document");
+        final int formatVersion = in.readInt();
+        if (formatVersion > FORMAT_VERSION)
+            throw new IOException("Unsupported format version " + formatVersion + ", the latest supported version is " + FORMAT_VERSION);
+
+        final int stringCount = readCount();
+        final List<String> stringTable = new ArrayList<>();
+        for (int i = 0; i < stringCount; i++) {
+            final byte[] bytes = new byte[readCount()];
+            in.readFully(bytes);
+            stringTable.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        strings = stringTable.toArray(new String[stringTable.size()]);
+
+        final String name = readString();
+        final String version = readString();
+        final String basePath = readString();
+
+        final int typeCount = readCount();
+        final Map<String, ApiModel.Type> types = new LinkedHashMap<>();
+        for (int i = 0; i < typeCount; i++) {
+            final ApiModel.Type type = readType();
+            types.put(type.getIdentifier(), type);
+        }
+
+        final int resourceCount = readCount();
+        final List<ApiModel.Resource> resources = new ArrayList<>();
+        for (int i = 0; i < resourceCount; i++) {
+            final String path = readString();
+            final int methodCount = readCount();
+            final List<ApiModel.Method> methods = new ArrayList<>();
+            for (int j = 0; j < methodCount; j++)
+                methods.add(readMethod());
+            resources.add(new ApiModel.Resource(path, methods));
+        }
+
+        return new ApiModel(name, version, basePath, resources, types);
+    }
+
+    private ApiModel.Type readType() throws IOException {
+        final String identifier = readString();
+        final String javaType = readString();
+        final int kindOrdinal = in.readUnsignedByte();
+        if (kindOrdinal >= ApiModel.Type.Kind.values().length)
+            throw new IOException("Unknown type kind " + kindOrdinal);
+        final ApiModel.Type.Kind kind = ApiModel.Type.Kind.values()[kindOrdinal];
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        String componentType = null;
+        List<String> enumValues = new ArrayList<>();
+        switch (kind) {
+            case CONCRETE:
+                final int propertyCount = readCount();
+                for (int i = 0; i < propertyCount; i++)
+                    properties.put(readString(), readString());
+                break;
+            case COLLECTION:
+                componentType = readString();
+                break;
+            case ENUM:
+                enumValues = readStrings();
+                break;
+            default:
+                break;
+        }
+        return new ApiModel.Type(identifier, javaType, kind, properties, componentType, enumValues);
+    }
+
+    private ApiModel.Method readMethod() throws IOException {
+        final String httpMethod = readString();
+        final String description = readString();
+        final List<String> requestMediaTypes = readStrings();
+        final List<String> responseMediaTypes = readStrings();
+
+        final int parameterCount = readCount();
+        final List<ApiModel.Parameter> parameters = new ArrayList<>();
+        for (int i = 0; i < parameterCount; i++)
+            parameters.add(new ApiModel.Parameter(readString(), readString(), readString(), readString()));
+
+        final String requestBody = readString();
+
+        final int responseCount = readCount();
+        final List<ApiModel.Response> responses = new ArrayList<>();
+        for (int i = 0; i < responseCount; i++)
+            responses.add(new ApiModel.Response(in.readInt(), readStrings(), readString()));
+
+        return new ApiModel.Method(httpMethod, description, requestMediaTypes, responseMediaTypes, parameters, requestBody, responses);
+    }
+
+    private List<String> readStrings() throws IOException {
+        final int count = readCount();
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            values.add(readString());
+        return values;
+    }
+
+    private String readString() throws IOException {
+        final int index = in.readInt();
+        if (index == -1)
+            return null;
+        if (index < 0 || index >= strings.length)
+            throw new IOException("Invalid string reference " + index);
+        return strings[index];
+    }
+
+    private int readCount() throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT)
+            throw new IOException("Invalid count " + count);
+        return count;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes an {@link ApiModel} in the binary model format.
+ * <p>
+ * The format starts with the magic number {@code JAXM} and the format version, followed by a table of all distinct
+ * strings. The model itself refers to the strings by their index in the table, {@code -1} denotes {@code null}.
+ * Repeated strings, such as media types, type identifiers or parameter locations, are therefore stored only once.
+ *
+ * @author Sebastian Daschner
+ * @see ApiModelReader
+ */
+public class ApiModelWriter {
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private ApiModelWriter() {
+    }
+
+    public static void write(final ApiModel model, final OutputStream output) throws IOException {
+        new ApiModelWriter().writeModel(model, output);
+    }
+
+    public static byte[] write(final ApiModel model) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            write(model, output);
+        } catch (IOException e) {
+            // not thrown by byte array streams
+            throw new IllegalStateException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private void writeModel(final ApiModel model, final OutputStream output) throws IOException {
+        // the string table precedes the model which refers to it
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream bodyOut = new DataOutputStream(body);
+
+        writeString(bodyOut, model.getName());
+        writeString(bodyOut, model.getVersion());
+        writeString(bodyOut, model.getBasePath());
+
+        bodyOut.writeInt(model.getTypes().size());
+        for (final ApiModel.Type type : model.getTypes().values())
+            writeType(bodyOut, type);
+
+        bodyOut.writeInt(model.getResources().size());
+        for (final ApiModel.Resource resource : model.getResources()) {
+            writeString(bodyOut, resource.getPath());
+            bodyOut.writeInt(resource.getMethods().size());
+            for (final ApiModel.Method method : resource.getMethods())
+                writeMethod(bodyOut, method);
+        }
+        bodyOut.flush();
+
+        final DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(ApiModelReader.MAGIC);
+        out.writeInt(ApiModelReader.FORMAT_VERSION);
+        out.writeInt(strings.size());
+        for (final String string : strings.keySet()) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        body.writeTo(out);
+        out.flush();
+    }
+
+    private void writeType(final DataOutputStream out, final ApiModel.Type type) throws IOException {
+        writeString(out, type.getIdentifier());
+        writeString(out, type.getJavaType());
+        out.writeByte(type.getKind().ordinal());
+        switch (type.getKind()) {
+            case CONCRETE:
+                out.writeInt(type.getProperties().size());
+                for (final Map.Entry<String, String> property : type.getProperties().entrySet()) {
+                    writeString(out, property.getKey());
+                    writeString(out, property.getValue());
+                }
+                break;
+            case COLLECTION:
+                writeString(out, type.getComponentType());
+                break;
+            case ENUM:
+                writeStrings(out, type.getEnumValues());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type kind " + type.getKind());
+        }
+    }
+
+    private void writeMethod(final DataOutputStream out, final ApiModel.Method method) throws IOException {
+        writeString(out, method.getHttpMethod());
+        writeString(out, method.getDescription());
+        writeStrings(out, method.getRequestMediaTypes());
+        writeStrings(out, method.getResponseMediaTypes());
+
+        out.writeInt(method.getParameters().size());
+        for (final ApiModel.Parameter parameter : method.getParameters()) {
+            writeString(out, parameter.getLocation());
+            writeString(out, parameter.getName());
+            writeString(out, parameter.getType());
+            writeString(out, parameter.getDefaultValue());
+        }
+
+        writeString(out, method.getRequestBody());
+
+        out.writeInt(method.getResponses().size());
+        for (final ApiModel.Response response : method.getResponses()) {
+            out.writeInt(response.getStatus());
+            writeStrings(out, response.getHeaders());
+            writeString(out, response.getBody());
+        }
+    }
+
+    private void writeStrings(final DataOutputStream out, final Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (final String value : values)
+            writeString(out, value);
+    }
+
+    private void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        out.writeInt(index);
+    }
+
+}
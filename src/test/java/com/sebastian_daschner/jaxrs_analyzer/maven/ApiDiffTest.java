@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ApiDiffTest {
+
+    private static final String BASELINE = "{\"swagger\":\"2.0\",\"info\":{\"title\":\"project\"},\"basePath\":\"/shop/rest\",\"tags\":[{\"name\":\"models\"}],"
+            + "\"paths\":{"
+            + "\"/models\":{\"get\":{\"parameters\":[{\"name\":\"limit\",\"in\":\"query\",\"type\":\"integer\"}],\"responses\":{\"200\":{\"description\":\"OK\"}}},"
+            + "\"post\":{\"parameters\":[{\"in\":\"body\",\"name\":\"body\",\"schema\":{\"$ref\":\"#/definitions/Model\"}}],\"responses\":{\"201\":{}}}},"
+            + "\"/models/{id}\":{\"get\":{\"parameters\":[{\"name\":\"id\",\"in\":\"path\",\"type\":\"integer\"}],\"responses\":{\"200\":{},\"404\":{}}},"
+            + "\"delete\":{\"parameters\":[{\"name\":\"id\",\"in\":\"path\",\"type\":\"integer\"}],\"responses\":{\"204\":{}}}}},"
+            + "\"definitions\":{\"Model\":{\"properties\":{\"id\":{\"type\":\"integer\"}}}}}";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jaxrs-analyzer-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        SourceStager.delete(directory);
+    }
+
+    @Test
+    public void testUnchanged() throws IOException {
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current());
+
+        assertTrue(diff.getAdded().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+        assertFalse(diff.isBasePathChanged());
+        assertFalse(diff.isIncompatible());
+    }
+
+    @Test
+    public void testAddedEndpoint() throws IOException {
+        final ApiDiff.Endpoints current = current();
+        current.add("PUT", "models/{id}", new HashSet<>(Arrays.asList("path:id", "body")), Collections.singleton("204"));
+
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current);
+
+        assertEquals(Collections.singleton("PUT /models/{id}"), diff.getAdded());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+        assertFalse(diff.isIncompatible());
+    }
+
+    @Test
+    public void testRemovedEndpoint() throws IOException {
+        final ApiDiff.Endpoints current = new ApiDiff.Endpoints("rest");
+        current.add("GET", "models", Collections.singleton("query:limit"), Collections.singleton("200"));
+        current.add("POST", "models", Collections.singleton("body"), Collections.singleton("201"));
+        current.add("GET", "models/{id}", Collections.singleton("path:id"), new HashSet<>(Arrays.asList("200", "404")));
+
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current);
+
+        assertTrue(diff.getAdded().isEmpty());
+        assertEquals(Collections.singleton("DELETE /models/{id}"), diff.getRemoved());
+        assertTrue(diff.getChanged().isEmpty());
+        assertTrue(diff.isIncompatible());
+    }
+
+    @Test
+    public void testChangedEndpoint() throws IOException {
+        final ApiDiff.Endpoints current = new ApiDiff.Endpoints("rest");
+        current.add("GET", "models", new HashSet<>(Arrays.asList("query:limit", "query:offset")), Collections.singleton("200"));
+        current.add("POST", "models", Collections.singleton("body"), Collections.singleton("201"));
+        // path parameters are compared by name, regardless of their regular expression
+        current.add("GET", "/models/{ id : \\d+ }/", Collections.singleton("path:id"), new HashSet<>(Arrays.asList("200", "404")));
+        current.add("DELETE", "models/{id}", Collections.singleton("path:id"), Collections.singleton("200"));
+
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current);
+
+        assertTrue(diff.getAdded().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("GET /models", "DELETE /models/{id}")), diff.getChanged().keySet());
+        assertTrue(diff.isIncompatible());
+    }
+
+    @Test
+    public void testChangedBasePath() throws IOException {
+        final ApiDiff.Endpoints current = new ApiDiff.Endpoints("api");
+
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current);
+
+        assertTrue(diff.isBasePathChanged());
+        assertEquals("shop/rest", diff.getBaselineBasePath());
+        assertEquals("api", diff.getCurrentBasePath());
+        assertTrue(diff.isIncompatible());
+    }
+
+    @Test
+    public void testCompressedBaseline() throws IOException {
+        final Path baseline = directory.resolve("swagger.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(baseline))) {
+            out.write(BASELINE.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertFalse(ApiDiff.compare(baseline, current()).isIncompatible());
+    }
+
+    @Test
+    public void testEmptyProject() throws IOException {
+        final ApiDiff.Endpoints current = ApiDiff.describe(new Resources());
+
+        final ApiDiff empty = ApiDiff.compare(baseline("{\"swagger\":\"2.0\",\"paths\":{}}"), current);
+        assertTrue(empty.getAdded().isEmpty());
+        assertTrue(empty.getRemoved().isEmpty());
+        assertFalse(empty.isIncompatible());
+
+        final ApiDiff diff = ApiDiff.compare(baseline(BASELINE), current);
+        assertEquals(4, diff.getRemoved().size());
+        assertFalse(diff.isBasePathChanged());
+        assertTrue(diff.isIncompatible());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedBaseline() throws IOException {
+        ApiDiff.compare(baseline(BASELINE.substring(0, BASELINE.length() / 2)), current());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoJsonBaseline() throws IOException {
+        ApiDiff.compare(baseline("swagger: '2.0'"), current());
+    }
+
+    @Test
+    public void testEndpointsRoundTrip() throws IOException {
+        final Path file = directory.resolve(ApiDiff.ENDPOINTS_FILE);
+        current().write(file);
+
+        assertFalse(ApiDiff.compare(baseline(BASELINE), ApiDiff.Endpoints.read(file)).isIncompatible());
+        assertTrue(ApiDiff.compare(baseline(BASELINE), ApiDiff.Endpoints.read(file)).getAdded().isEmpty());
+    }
+
+    @Test
+    public void testUnreadableEndpoints() throws IOException {
+        final Path file = directory.resolve(ApiDiff.ENDPOINTS_FILE);
+        Files.write(file, new byte[]{0, 0, 0, 1, 0});
+
+        assertNull(ApiDiff.Endpoints.read(file));
+        assertNull(ApiDiff.Endpoints.read(directory.resolve("missing")));
+    }
+
+    private Path baseline(final String content) throws IOException {
+        final Path baseline = directory.resolve("swagger.json");
+        Files.write(baseline, content.getBytes(StandardCharsets.UTF_8));
+        return baseline;
+    }
+
+    private static ApiDiff.Endpoints current() {
+        final ApiDiff.Endpoints current = new ApiDiff.Endpoints("rest");
+        current.add("GET", "models", Collections.singleton("query:limit"), Collections.singleton("200"));
+        current.add("POST", "models", Collections.singleton("body"), Collections.singleton("201"));
+        current.add("GET", "models/{id}", Collections.singleton("path:id"), new HashSet<>(Arrays.asList("200", "404")));
+        current.add("DELETE", "models/{id}", Collections.singleton("path:id"), Collections.singleton("204"));
+        return current;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DaemonRequestTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final DaemonRequest request = createRequest();
+
+        final DaemonRequest actual = roundTrip(request);
+
+        assertEquals(request.projectName, actual.projectName);
+        assertEquals(request.projectVersion, actual.projectVersion);
+        assertEquals(request.classPaths, actual.classPaths);
+        assertEquals(request.projectPaths, actual.projectPaths);
+        assertEquals(request.sourcePaths, actual.sourcePaths);
+        assertEquals(request.ignoredResources, actual.ignoredResources);
+        assertEquals(request.backendTypes, actual.backendTypes);
+        assertEquals(request.backendConfig, actual.backendConfig);
+        assertEquals(request.resourcesDirectory, actual.resourcesDirectory);
+        assertEquals(request.encoding, actual.encoding);
+    }
+
+    @Test
+    public void testNullValues() throws IOException {
+        final DaemonRequest request = createRequest();
+        request.projectName = null;
+        request.encoding = null;
+        request.backendConfig.put("domain", null);
+        request.backendConfig.put("empty", "");
+
+        final DaemonRequest actual = roundTrip(request);
+
+        assertNull(actual.projectName);
+        assertNull(actual.encoding);
+        assertTrue(actual.backendConfig.containsKey("domain"));
+        assertNull(actual.backendConfig.get("domain"));
+        assertEquals("", actual.backendConfig.get("empty"));
+        assertEquals(request.backendConfig, actual.backendConfig);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidSize() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            out.writeInt(DaemonRequest.PROTOCOL_VERSION);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        DaemonRequest.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeSize() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            out.writeInt(DaemonRequest.PROTOCOL_VERSION);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeInt(-1);
+        }
+
+        DaemonRequest.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownBackendType() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            out.writeInt(DaemonRequest.PROTOCOL_VERSION);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            for (int i = 0; i < 4; i++)
+                out.writeInt(0);
+            out.writeInt(1);
+            out.writeUTF("RAML");
+        }
+
+        DaemonRequest.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedRequest() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            createRequest().write(out);
+        }
+        final byte[] request = Arrays.copyOf(output.toByteArray(), output.size() / 2);
+
+        DaemonRequest.read(new DataInputStream(new ByteArrayInputStream(request)));
+    }
+
+    private static DaemonRequest createRequest() {
+        final DaemonRequest request = new DaemonRequest();
+        request.projectName = "project";
+        request.projectVersion = "1.0-SNAPSHOT";
+        request.classPaths.addAll(Arrays.asList(Paths.get("/repository/javaee-api.jar"), Paths.get("/project/module/target/classes")));
+        request.projectPaths.add(Paths.get("/project/target/classes"));
+        request.sourcePaths.add(Paths.get("/project/src/main/java"));
+        request.ignoredResources.add("com.example.Ignored");
+        request.backendTypes.addAll(Arrays.asList(BackendType.SWAGGER, BackendType.ASCIIDOC));
+        request.backendConfig.put("swaggerSchemes", "http,https");
+        request.resourcesDirectory = Paths.get("/project/target/jaxrs-analyzer");
+        request.encoding = "UTF-8";
+        return request;
+    }
+
+    private static DaemonRequest roundTrip(final DaemonRequest request) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            request.write(out);
+        }
+        return DaemonRequest.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+}
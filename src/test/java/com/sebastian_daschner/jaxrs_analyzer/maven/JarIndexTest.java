@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.*;
+
+import static org.junit.Assert.*;
+
+public class JarIndexTest {
+
+    private Path directory;
+    private Path indexDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jaxrs-analyzer-test");
+        indexDirectory = directory.resolve("index");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        SourceStager.delete(directory);
+    }
+
+    @Test
+    public void testStoredEntries() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("stored.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeStored(out, e.getKey() + ".class", e.getValue());
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testDeflatedEntries() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("deflated.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeDeflated(out, e.getKey() + ".class", e.getValue());
+        }
+
+        assertNoDataDescriptors(jar);
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testDataDescriptors() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("descriptors.jar");
+        // the sizes of deflated entries are unknown in advance and written in data descriptors
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet()) {
+                out.putNextEntry(new ZipEntry(e.getKey() + ".class"));
+                out.write(e.getValue());
+                out.closeEntry();
+            }
+        }
+
+        assertDataDescriptors(jar);
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testMixedEntries() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("mixed.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("META-INF/"));
+            out.closeEntry();
+            writeStored(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\n".getBytes(StandardCharsets.UTF_8));
+            int index = 0;
+            for (final Map.Entry<String, byte[]> e : classes.entrySet()) {
+                if (index++ % 2 == 0) {
+                    writeStored(out, e.getKey() + ".class", e.getValue());
+                } else {
+                    out.putNextEntry(new ZipEntry(e.getKey() + ".class"));
+                    out.write(e.getValue());
+                    out.closeEntry();
+                }
+            }
+            writeDeflated(out, "com/example/messages.properties", "greeting=Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testArchiveComment() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("comment.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeDeflated(out, e.getKey() + ".class", e.getValue());
+            out.setComment("Built by the release pipeline");
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testArchiveCommentContainingSignature() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("signature-comment.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeStored(out, e.getKey() + ".class", e.getValue());
+            // the signature of the end of central directory record, followed by enough bytes to look like a record
+            out.setComment("PK\u0005\u0006 comment which contains the end of central directory signature");
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testMaximumArchiveComment() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("long-comment.jar");
+        final char[] comment = new char[0xffff];
+        Arrays.fill(comment, 'c');
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeDeflated(out, e.getKey() + ".class", e.getValue());
+            out.setComment(new String(comment));
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testPersistedIndex() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("persisted.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeDeflated(out, e.getKey() + ".class", e.getValue());
+        }
+
+        JarIndex.load(jar, indexDirectory);
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            assertEquals(1, files.filter(p -> p.toString().endsWith(".idx")).count());
+        }
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testOutdatedIndex() throws IOException {
+        final Path jar = directory.resolve("outdated.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            writeDeflated(out, "com/example/Old.class", classFile("com/example/Old"));
+        }
+        JarIndex.load(jar, indexDirectory);
+
+        final Map<String, byte[]> classes = classes();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeStored(out, e.getKey() + ".class", e.getValue());
+        }
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test
+    public void testCorruptIndex() throws IOException {
+        final Map<String, byte[]> classes = classes();
+        final Path jar = directory.resolve("corrupt.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (final Map.Entry<String, byte[]> e : classes.entrySet())
+                writeDeflated(out, e.getKey() + ".class", e.getValue());
+        }
+        JarIndex.load(jar, indexDirectory);
+
+        final Path indexFile;
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            indexFile = files.filter(p -> p.toString().endsWith(".idx")).findFirst().orElseThrow(IllegalStateException::new);
+        }
+        // the entry count follows the magic number, format version, size and modification time
+        final byte[] index = Files.readAllBytes(indexFile);
+        index[24] = 0x7f;
+        Files.write(indexFile, index);
+
+        assertClasses(classes, JarIndex.load(jar, indexDirectory));
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testMissingClass() throws IOException {
+        final Path jar = directory.resolve("missing.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            writeDeflated(out, "com/example/Model.class", classFile("com/example/Model"));
+        }
+
+        JarIndex.load(jar, indexDirectory).read("com/example/Other");
+    }
+
+    @Test
+    public void testZip64EntryCount() throws IOException {
+        final Path jar = directory.resolve("zip64.jar");
+        // more than 65535 entries require the ZIP64 end of central directory record
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            writeDeflated(out, "com/example/Model.class", classFile("com/example/Model"));
+            for (int i = 0; i < 0xffff; i++) {
+                out.putNextEntry(new ZipEntry("d" + i + '/'));
+                out.closeEntry();
+            }
+        }
+
+        try {
+            JarIndex.load(jar, indexDirectory);
+            fail("ZIP64 archive was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("ZIP64"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoArchive() throws IOException {
+        final Path file = directory.resolve("invalid.jar");
+        Files.write(file, "not a ZIP archive, but long enough to contain an end of central directory record".getBytes(StandardCharsets.UTF_8));
+
+        JarIndex.load(file, indexDirectory);
+    }
+
+    private static Map<String, byte[]> classes() {
+        final Map<String, byte[]> classes = new TreeMap<>();
+        for (final String name : Arrays.asList("com/example/Model", "com/example/Resource", "com/example/Resource$Inner", "com/example/ÜberModel",
+                "Toplevel"))
+            classes.put(name, classFile(name));
+        return classes;
+    }
+
+    /**
+     * Returns compressible content of different sizes, which is not parsed by the index.
+     */
+    private static byte[] classFile(final String name) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < name.length() * 50; i++)
+            builder.append(name).append(i % 7);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeStored(final ZipOutputStream out, final String name, final byte[] content) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc(content));
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    /**
+     * Writes a deflated entry whose sizes are known in advance, so they are written to the local header instead of a
+     * data descriptor.
+     */
+    private static void writeDeflated(final ZipOutputStream out, final String name, final byte[] content) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (OutputStream deflating = new DeflaterOutputStream(compressed, deflater)) {
+            deflating.write(content);
+        } finally {
+            deflater.end();
+        }
+
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.DEFLATED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(compressed.size());
+        entry.setCrc(crc(content));
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static long crc(final byte[] content) {
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static void assertClasses(final Map<String, byte[]> expected, final JarIndex index) throws IOException {
+        assertEquals(expected.keySet(), index.getClassNames());
+        for (final Map.Entry<String, byte[]> e : expected.entrySet())
+            assertArrayEquals(e.getKey(), e.getValue(), index.read(e.getKey()));
+    }
+
+    private static void assertDataDescriptors(final Path jar) throws IOException {
+        assertTrue(usesDataDescriptors(jar));
+    }
+
+    private static void assertNoDataDescriptors(final Path jar) throws IOException {
+        assertFalse(usesDataDescriptors(jar));
+    }
+
+    /**
+     * Returns if the general purpose flag of the first local header indicates a data descriptor.
+     */
+    private static boolean usesDataDescriptors(final Path jar) throws IOException {
+        try (InputStream in = Files.newInputStream(jar)) {
+            final byte[] header = new byte[8];
+            assertEquals(header.length, in.read(header));
+            return (header[6] & 0x08) != 0;
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven;
+
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Project;
+import com.sebastian_daschner.jaxrs_analyzer.model.rest.Resources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SwaggerStreamingWriterTest {
+
+    private static final String INFO = "\"swagger\":\"2.0\",\"info\":{\"version\":\"1.0\",\"title\":\"project\"},\"host\":\"\",\"basePath\":\"/rest\","
+            + "\"schemes\":[\"http\"]";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jaxrs-analyzer-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        SourceStager.delete(directory);
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        final List<Path> chunks = Arrays.asList(
+                chunk("{" + INFO + ",\"tags\":[{\"name\":\"models\"}],\"paths\":{\"/models\":{\"get\":{\"responses\":{\"200\":{\"schema\":{\"$ref\":\"#/definitions/Model\"}}}}}},"
+                        + "\"definitions\":{\"Model\":{\"properties\":{\"id\":{\"type\":\"integer\"}}}}}"),
+                chunk("{" + INFO + ",\"tags\":[{\"name\":\"users\"}],\"paths\":{\"/users\":{\"post\":{\"responses\":{\"201\":{}}}}},"
+                        + "\"definitions\":{\"Model\":{\"properties\":{\"id\":{\"type\":\"integer\"}}},\"User\":{\"properties\":{\"name\":{\"type\":\"string\"}}}}}"));
+
+        final Map<String, Object> document = merge(chunks);
+
+        assertEquals("2.0", document.get("swagger"));
+        assertEquals("/rest", document.get("basePath"));
+        assertEquals("project", object(document, "info").get("title"));
+        assertEquals(new HashSet<>(Arrays.asList("/models", "/users")), object(document, "paths").keySet());
+        assertEquals(new HashSet<>(Arrays.asList("Model", "User")), object(document, "definitions").keySet());
+    }
+
+    @Test
+    public void testMergeDifferentArrays() throws IOException {
+        final List<Path> chunks = Arrays.asList(
+                chunk("{" + INFO + ",\"tags\":[{\"name\":\"models\"}],\"paths\":{\"/models\":{}},\"definitions\":{}}"),
+                chunk("{" + INFO + ",\"tags\":[{\"name\":\"users\"},{\"name\":\"models\"}],\"paths\":{\"/users\":{}},\"definitions\":{}}"),
+                chunk("{" + INFO + ",\"tags\":[],\"paths\":{\"/status\":{}},\"definitions\":{}}"));
+
+        final Map<String, Object> document = merge(chunks);
+
+        assertEquals(Arrays.asList(Collections.singletonMap("name", "models"), Collections.singletonMap("name", "users")), document.get("tags"));
+        assertEquals(Collections.singletonList("http"), document.get("schemes"));
+        assertEquals(3, object(document, "paths").size());
+    }
+
+    @Test
+    public void testConflictingInfo() throws IOException {
+        final List<Path> chunks = Arrays.asList(
+                chunk("{" + INFO + ",\"paths\":{\"/models\":{}},\"definitions\":{}}"),
+                chunk("{" + INFO.replace("/rest", "/api") + ",\"paths\":{\"/users\":{}},\"definitions\":{}}"));
+
+        assertFalse(SwaggerStreamingWriter.merge(chunks, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testConflictingDefinitions() throws IOException {
+        final List<Path> chunks = Arrays.asList(
+                chunk("{" + INFO + ",\"paths\":{\"/models\":{}},\"definitions\":{\"Model\":{\"properties\":{\"id\":{\"type\":\"integer\"}}}}}"),
+                chunk("{" + INFO + ",\"paths\":{\"/users\":{}},\"definitions\":{\"Model\":{\"properties\":{\"id\":{\"type\":\"string\"}}}}}"));
+
+        assertFalse(SwaggerStreamingWriter.merge(chunks, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testNoChunks() throws IOException {
+        assertFalse(SwaggerStreamingWriter.merge(Collections.emptyList(), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testEmptyProject() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertFalse(new SwaggerStreamingWriter(Collections.emptyMap()).write(new Project("project", "1.0", new Resources()), output));
+        assertEquals(0, output.size());
+    }
+
+    private Path chunk(final String content) throws IOException {
+        final Path chunk = Files.createTempFile(directory, "chunk", ".json");
+        Files.write(chunk, content.getBytes(StandardCharsets.UTF_8));
+        return chunk;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> merge(final List<Path> chunks) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertTrue(SwaggerStreamingWriter.merge(chunks, output));
+
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(output.toByteArray()))) {
+            return (Map<String, Object>) read(parser, parser.next());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> object(final Map<String, Object> object, final String name) {
+        return (Map<String, Object>) object.get(name);
+    }
+
+    /**
+     * Reads the current value as maps, lists and strings.
+     */
+    private static Object read(final JsonParser parser, final JsonParser.Event event) {
+        switch (event) {
+            case START_OBJECT:
+                final Map<String, Object> object = new LinkedHashMap<>();
+                while (parser.next() == JsonParser.Event.KEY_NAME) {
+                    final String name = parser.getString();
+                    object.put(name, read(parser, parser.next()));
+                }
+                return object;
+            case START_ARRAY:
+                final List<Object> array = new ArrayList<>();
+                JsonParser.Event element;
+                while ((element = parser.next()) != JsonParser.Event.END_ARRAY)
+                    array.add(read(parser, element));
+                return array;
+            case VALUE_STRING:
+            case VALUE_NUMBER:
+                return parser.getString();
+            default:
+                return event.name();
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 Sebastian Daschner, sebastian-daschner.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sebastian_daschner.jaxrs_analyzer.maven.model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ApiModelWriterTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final ApiModel model = createModel();
+
+        final ApiModel actual = ApiModelReader.read(new ByteArrayInputStream(ApiModelWriter.write(model)));
+
+        assertModel(model, actual);
+    }
+
+    @Test
+    public void testRoundTripStream() throws IOException {
+        final ApiModel model = createModel();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ApiModelWriter.write(model, output);
+
+        assertArrayEquals(ApiModelWriter.write(model), output.toByteArray());
+        assertModel(model, ApiModelReader.read(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test
+    public void testRoundTripCompressed() throws IOException {
+        final ApiModel model = createModel();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(ApiModelWriter.write(model));
+        }
+
+        assertModel(model, ApiModelReader.read(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    @Test
+    public void testRoundTripEmpty() throws IOException {
+        final ApiModel model = new ApiModel(null, null, null, Collections.emptyList(), Collections.emptyMap());
+
+        assertModel(model, ApiModelReader.read(new ByteArrayInputStream(ApiModelWriter.write(model))));
+    }
+
+    @Test
+    public void testDeterministic() {
+        assertArrayEquals(ApiModelWriter.write(createModel()), ApiModelWriter.write(createModel()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidDocument() throws IOException {
+        ApiModelReader.read(new ByteArrayInputStream("{\"swagger\":\"2.0\"}".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNewerFormatVersion() throws IOException {
+        final byte[] document = ApiModelWriter.write(createModel());
+        document[7] = (byte) (ApiModelReader.FORMAT_VERSION + 1);
+
+        ApiModelReader.read(new ByteArrayInputStream(document));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDocument() throws IOException {
+        final byte[] document = ApiModelWriter.write(createModel());
+
+        ApiModelReader.read(new ByteArrayInputStream(Arrays.copyOf(document, document.length / 2)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidCount() throws IOException {
+        final byte[] document = ApiModelWriter.write(createModel());
+        // the number of strings follows the header
+        document[8] = 0x7f;
+
+        ApiModelReader.read(new ByteArrayInputStream(document));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptCount() throws IOException {
+        final byte[] document = ApiModelWriter.write(createModel());
+        // a count within the limit, which exceeds the document
+        document[9] = 0x7f;
+
+        ApiModelReader.read(new ByteArrayInputStream(document));
+    }
+
+    private static ApiModel createModel() {
+        final Map<String, ApiModel.Type> types = new LinkedHashMap<>();
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("id", "long");
+        properties.put("name", "string");
+        properties.put("status", "com.example.Status");
+        types.put("com.example.Model", new ApiModel.Type("com.example.Model", "Lcom/example/Model;", ApiModel.Type.Kind.CONCRETE, properties, null,
+                Collections.emptyList()));
+        types.put("java.util.List<com.example.Model>", new ApiModel.Type("java.util.List<com.example.Model>", "Ljava/util/List;",
+                ApiModel.Type.Kind.COLLECTION, Collections.emptyMap(), "com.example.Model", Collections.emptyList()));
+        types.put("com.example.Status", new ApiModel.Type("com.example.Status", "Lcom/example/Status;", ApiModel.Type.Kind.ENUM,
+                Collections.emptyMap(), null, Arrays.asList("ACTIVE", "INACTIVE")));
+
+        final ApiModel.Method getModels = new ApiModel.Method("GET", "Returns all models, in German: über alle Modelle.", Collections.emptyList(),
+                Collections.singletonList("application/json"), Arrays.asList(new ApiModel.Parameter("QUERY", "limit", "int", "10"),
+                new ApiModel.Parameter("HEADER", "X-Trace", "string", null)), null,
+                Collections.singletonList(new ApiModel.Response(200, Collections.emptyList(), "java.util.List<com.example.Model>")));
+        final ApiModel.Method createModel = new ApiModel.Method("POST", null, Collections.singletonList("application/json"), Collections.emptyList(),
+                Collections.emptyList(), "com.example.Model", Arrays.asList(new ApiModel.Response(201, Collections.singletonList("Location"), null),
+                new ApiModel.Response(400, Collections.emptyList(), null)));
+        final ApiModel.Method getModel = new ApiModel.Method("GET", null, Collections.emptyList(), Collections.singletonList("application/json"),
+                Collections.singletonList(new ApiModel.Parameter("PATH", "id", "long", null)), null,
+                Arrays.asList(new ApiModel.Response(200, Collections.emptyList(), "com.example.Model"), new ApiModel.Response(404, Collections.emptyList(), null)));
+
+        final List<ApiModel.Resource> resources = Arrays.asList(new ApiModel.Resource("models", Arrays.asList(getModels, createModel)),
+                new ApiModel.Resource("models/{id}", Collections.singletonList(getModel)));
+        return new ApiModel("project", "1.0", "rest", resources, types);
+    }
+
+    private static void assertModel(final ApiModel expected, final ApiModel actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getBasePath(), actual.getBasePath());
+
+        assertEquals(expected.getTypes().keySet(), actual.getTypes().keySet());
+        for (final ApiModel.Type type : expected.getTypes().values()) {
+            final ApiModel.Type actualType = actual.getTypes().get(type.getIdentifier());
+            assertEquals(type.getIdentifier(), actualType.getIdentifier());
+            assertEquals(type.getJavaType(), actualType.getJavaType());
+            assertEquals(type.getKind(), actualType.getKind());
+            assertEquals(type.getProperties(), actualType.getProperties());
+            assertEquals(new ArrayList<>(type.getProperties().keySet()), new ArrayList<>(actualType.getProperties().keySet()));
+            assertEquals(type.getComponentType(), actualType.getComponentType());
+            assertEquals(type.getEnumValues(), actualType.getEnumValues());
+        }
+
+        assertEquals(expected.getResources().size(), actual.getResources().size());
+        for (int i = 0; i < expected.getResources().size(); i++) {
+            final ApiModel.Resource resource = expected.getResources().get(i);
+            final ApiModel.Resource actualResource = actual.getResources().get(i);
+            assertEquals(resource.getPath(), actualResource.getPath());
+            assertEquals(resource.getMethods().size(), actualResource.getMethods().size());
+            for (int j = 0; j < resource.getMethods().size(); j++)
+                assertMethod(resource.getMethods().get(j), actualResource.getMethods().get(j));
+        }
+    }
+
+    private static void assertMethod(final ApiModel.Method expected, final ApiModel.Method actual) {
+        assertEquals(expected.getHttpMethod(), actual.getHttpMethod());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getRequestMediaTypes(), actual.getRequestMediaTypes());
+        assertEquals(expected.getResponseMediaTypes(), actual.getResponseMediaTypes());
+        assertEquals(expected.getRequestBody(), actual.getRequestBody());
+
+        assertEquals(expected.getParameters().size(), actual.getParameters().size());
+        for (int i = 0; i < expected.getParameters().size(); i++) {
+            final ApiModel.Parameter parameter = expected.getParameters().get(i);
+            final ApiModel.Parameter actualParameter = actual.getParameters().get(i);
+            assertEquals(parameter.getLocation(), actualParameter.getLocation());
+            assertEquals(parameter.getName(), actualParameter.getName());
+            assertEquals(parameter.getType(), actualParameter.getType());
+            assertEquals(parameter.getDefaultValue(), actualParameter.getDefaultValue());
+        }
+
+        assertEquals(expected.getResponses().size(), actual.getResponses().size());
+        for (int i = 0; i < expected.getResponses().size(); i++) {
+            final ApiModel.Response response = expected.getResponses().get(i);
+            final ApiModel.Response actualResponse = actual.getResponses().get(i);
+            assertEquals(response.getStatus(), actualResponse.getStatus());
+            assertEquals(response.getHeaders(), actualResponse.getHeaders());
+            assertEquals(response.getBody(), actualResponse.getBody());
+        }
+    }
+
+}